@@ -0,0 +1,72 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.BasicTerminal;
+import simple.terminal.HeadlessTerminal;
+import simple.terminal.TerminalLogger;
+import simple.terminal.command.CommandManager;
+import simple.terminal.logging.AsyncLogger;
+import simple.terminal.logging.ScreenSink;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a log call seen by a command: writing straight to the terminal against handing the entry to the
+ * asynchronous logger, with one and four producing threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncLoggerBenchmark {
+    private static final String MESSAGE = "drwxr-xr-x         4096 2016-05-01 12:00 simple-terminal";
+
+    @Param({"BLOCK", "DROP"})
+    public AsyncLogger.OverflowPolicy overflowPolicy;
+
+    private BasicTerminal terminal;
+    private AsyncLogger asyncLogger;
+
+    @Setup
+    public void setUp() throws IOException {
+        CommandManager commandManager = new CommandManager();
+        terminal = new BasicTerminal(commandManager, commandManager, new HeadlessTerminal(80, 24));
+        terminal.start();
+        asyncLogger = new AsyncLogger(overflowPolicy).addSink(new ScreenSink(terminal));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        asyncLogger.close();
+        terminal.stop();
+    }
+
+    @Benchmark
+    public TerminalLogger direct() {
+        terminal.log("bench", MESSAGE);
+        return terminal;
+    }
+
+    @Benchmark
+    public TerminalLogger async() {
+        asyncLogger.log("bench", MESSAGE);
+        return asyncLogger;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TerminalLogger directFourThreads() {
+        terminal.log("bench", MESSAGE);
+        return terminal;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TerminalLogger asyncFourThreads() {
+        asyncLogger.log("bench", MESSAGE);
+        return asyncLogger;
+    }
+}
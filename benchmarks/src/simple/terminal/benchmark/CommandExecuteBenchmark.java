@@ -0,0 +1,78 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.TerminalLogger;
+import simple.terminal.command.CommandManager;
+import simple.terminal.command.TerminalCommand;
+import simple.terminal.validation.ValidationException;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandExecuteBenchmark {
+    private static final TerminalLogger NO_LOGGER = (source, message) -> {
+    };
+
+    @Param({"10", "1000", "100000"})
+    public int registrySize;
+
+    @Param({"true", "false"})
+    public boolean metricsEnabled;
+
+    private CommandManager commandManager;
+
+    @Setup
+    public void setUp() {
+        commandManager = Registries.create(registrySize);
+        commandManager.getMetrics().setEnabled(metricsEnabled);
+    }
+
+    @Benchmark
+    public Object hit() {
+        TerminalCommand.Params params = new TerminalCommand.Params(new String[]{"value"}, NO_LOGGER);
+        commandManager.execute(Registries.TARGET, params);
+        return params;
+    }
+
+    /**
+     * A hit on a command writing one line, so that with metrics enabled the output timing is measured too.
+     */
+    @Benchmark
+    public Object outputHit() {
+        TerminalCommand.Params params = new TerminalCommand.Params(new String[]{"value"}, NO_LOGGER);
+        commandManager.execute(Registries.OUTPUT_TARGET, params);
+        return params;
+    }
+
+    @Benchmark
+    public Object typedHit() {
+        TerminalCommand.Params params = new TerminalCommand.Params(new String[]{"-l", "-n", "42", "value"}, NO_LOGGER);
+        commandManager.execute(Registries.TYPED_TARGET, params);
+        return params;
+    }
+
+    @Benchmark
+    public Object miss() {
+        try {
+            commandManager.execute("missing-command", new TerminalCommand.Params(null, NO_LOGGER));
+            return null;
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object arityMismatch() {
+        try {
+            commandManager.execute(Registries.TARGET, new TerminalCommand.Params(new String[]{"a", "b"}, NO_LOGGER));
+            return null;
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.command.CommandManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandGenerateBenchmark {
+    @Param({"10", "1000", "10000", "100000"})
+    public int registrySize;
+
+    @Param({"", "t", "tar", "target"})
+    public String prefix;
+
+    private CommandManager commandManager;
+
+    @Setup
+    public void setUp() {
+        commandManager = Registries.create(registrySize);
+    }
+
+    @Benchmark
+    public List<String> generate() {
+        return commandManager.generate(prefix);
+    }
+}
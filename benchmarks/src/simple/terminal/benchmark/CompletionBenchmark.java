@@ -0,0 +1,34 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.completion.CompletionEngine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompletionBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int registrySize;
+
+    @Param({"", "tgt", "target", "qzx"})
+    public String buffer;
+
+    private CompletionEngine completionEngine;
+
+    @Setup
+    public void setUp() {
+        completionEngine = new CompletionEngine(Registries.create(registrySize));
+        completionEngine.accepted(Registries.TARGET + " value");
+    }
+
+    @Benchmark
+    public List<String> tab() {
+        return completionEngine.generate(buffer);
+    }
+}
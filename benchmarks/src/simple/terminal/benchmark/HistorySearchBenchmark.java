@@ -0,0 +1,58 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.CommandHistory;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistorySearchBenchmark {
+    private static final String[] WORDS = {"ls", "cd", "pwd", "git", "status", "commit", "grep", "find",
+            "src", "target", "build", "docs", "-l", "-n", "--all", "main", "test", "release"};
+
+    @Param({"10000", "100000", "1000000"})
+    public int historySize;
+
+    @Param({"gi", "git st", "release docs", "no such command"})
+    public String query;
+
+    private CommandHistory history;
+
+    @Setup
+    public void setUp() throws IOException {
+        history = new CommandHistory(historySize);
+        Random random = new Random(historySize);
+        for (int i = 0; i < historySize; i++) {
+            StringBuilder entry = new StringBuilder();
+            int words = 1 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                entry.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            history.add(entry.append(i).toString());
+        }
+        history.search(query, historySize);
+    }
+
+    @Benchmark
+    public int newestMatch() {
+        return history.search(query, historySize);
+    }
+
+    @Benchmark
+    public int allMatchesOfFirstKeystrokes() {
+        int match = history.size();
+        int found = 0;
+        for (int i = 0; i < 10 && match > 0; i++) {
+            match = history.search(query, match);
+            found++;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,39 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.command.LimitedList;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LimitedListBenchmark {
+    @Param({"10", "1000", "10000"})
+    public int capacity;
+
+    private LimitedList<String> list;
+    private String[] entries;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        list = new LimitedList<>(capacity);
+        entries = new String[1024];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = "command " + i;
+        }
+        for (int i = 0; i < capacity; i++) {
+            list.add(entries[i % entries.length]);
+        }
+    }
+
+    @Benchmark
+    public boolean addWhenFull() {
+        next = (next + 1) & (entries.length - 1);
+        return list.add(entries[next]);
+    }
+}
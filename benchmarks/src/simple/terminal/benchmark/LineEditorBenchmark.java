@@ -0,0 +1,57 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.LineEditor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pastes text one key at a time in the middle of an existing line, as the terminal receives it, with the gap
+ * buffer of the line editor and with the {@link StringBuffer} it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineEditorBenchmark {
+    @Param({"1024", "102400"})
+    public int pasteSize;
+
+    private String line;
+    private String paste;
+
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < pasteSize; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        paste = text.toString();
+        line = paste.substring(0, Math.min(pasteSize, 4096));
+    }
+
+    @Benchmark
+    public LineEditor gapBuffer() {
+        LineEditor editor = new LineEditor();
+        editor.set(line);
+        for (int i = 0; i < line.length() / 2; i++) {
+            editor.moveLeft();
+        }
+        for (int i = 0; i < paste.length(); i++) {
+            editor.insert(paste.charAt(i));
+        }
+        return editor;
+    }
+
+    @Benchmark
+    public StringBuffer stringBuffer() {
+        StringBuffer buffer = new StringBuffer(line);
+        int cursor = line.length() - line.length() / 2;
+        for (int i = 0; i < paste.length(); i++) {
+            buffer.insert(cursor++, paste.charAt(i));
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,72 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.command.CommandManager;
+import simple.terminal.command.CommandPlugin;
+import simple.terminal.command.PluginLoader;
+import simple.terminal.command.TerminalCommand;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the plugin part of the time to the first prompt: reading the command index and registering
+ * every plugin command, without loading any plugin class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PluginLoadBenchmark {
+    public static class EchoPlugin implements CommandPlugin {
+        @Override
+        public boolean execute(TerminalCommand.Params params) {
+            return true;
+        }
+    }
+
+    @Param({"1000", "10000"})
+    public int pluginCount;
+
+    private Path folder;
+    private URLClassLoader classLoader;
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("plugins");
+        Path index = folder.resolve(PluginLoader.INDEX_RESOURCE);
+        Files.createDirectories(index.getParent());
+        try (Writer writer = Files.newBufferedWriter(index, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < pluginCount; i++) {
+                writer.write("plugin-" + i + " " + (i % 3) + " " + EchoPlugin.class.getName() + "\n");
+            }
+        }
+        classLoader = new URLClassLoader(new URL[]{folder.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        classLoader.close();
+        Files.delete(folder.resolve(PluginLoader.INDEX_RESOURCE));
+        Files.delete(folder.resolve(PluginLoader.INDEX_RESOURCE).getParent());
+        Files.delete(folder.resolve(PluginLoader.INDEX_RESOURCE).getParent().getParent());
+        Files.delete(folder);
+    }
+
+    @Benchmark
+    public CommandManager loadIndex() throws IOException {
+        CommandManager commandManager = new CommandManager();
+        new PluginLoader(classLoader).load(commandManager, (source, message) -> {
+            throw new IllegalStateException(message);
+        });
+        return commandManager;
+    }
+}
@@ -0,0 +1,42 @@
+package simple.terminal.benchmark;
+
+import simple.terminal.command.CommandManager;
+import simple.terminal.command.ParameterSchema;
+import simple.terminal.command.ParameterType;
+import simple.terminal.command.TerminalCommand;
+
+import java.util.Random;
+
+final class Registries {
+    static final String TARGET = "target";
+    static final String TYPED_TARGET = "typed-target";
+    static final String OUTPUT_TARGET = "output-target";
+
+    private Registries() {
+    }
+
+    static CommandManager create(int size) {
+        CommandManager commandManager = new CommandManager();
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            commandManager.addCommand(new TerminalCommand(name(random, i), params -> true, random.nextInt(3)));
+        }
+        commandManager.addCommand(new TerminalCommand(TARGET, params -> true, 1));
+        commandManager.addCommand(new TerminalCommand(OUTPUT_TARGET, params -> {
+            params.getLogger().log(OUTPUT_TARGET, params.getValues()[0]);
+            return true;
+        }, 1));
+        commandManager.addCommand(new TerminalCommand(TYPED_TARGET, params -> params.get("value") != null,
+                new ParameterSchema().flag("-l").option("-n", ParameterType.INT).required("value", ParameterType.STRING)));
+        return commandManager;
+    }
+
+    static String name(Random random, int index) {
+        StringBuilder name = new StringBuilder();
+        int length = 2 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            name.append((char) ('a' + random.nextInt(26)));
+        }
+        return name.append('-').append(index).toString();
+    }
+}
@@ -0,0 +1,63 @@
+package simple.terminal.benchmark;
+
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.command.CommandManager;
+import simple.terminal.command.TerminalCommand;
+import simple.terminal.recording.SessionRecorder;
+import simple.terminal.recording.SessionReplay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded session as fast as possible: every command line is typed, rendered, executed and its
+ * output rendered before the next one starts, so this covers the whole input, execute and render path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionReplayBenchmark {
+    @Param({"10", "1000"})
+    public int commands;
+
+    private Path recording;
+    private SessionReplay replay;
+
+    @Setup
+    public void setUp() throws IOException {
+        CommandManager commandManager = new CommandManager();
+        commandManager.addCommand(new TerminalCommand("print", params -> {
+            params.getLogger().log("print", String.join(" ", params.getValues()));
+            return true;
+        }, true));
+        replay = new SessionReplay(commandManager, commandManager);
+
+        recording = Files.createTempFile("session", ".rec");
+        try (SessionRecorder recorder = new SessionRecorder(recording, 80, 24)) {
+            for (int i = 0; i < commands; i++) {
+                for (char c : ("print line " + i + " of the recorded session").toCharArray()) {
+                    recorder.key(new KeyStroke(c, false, false));
+                }
+                recorder.key(new KeyStroke(KeyType.Enter));
+            }
+            recorder.key(new KeyStroke(KeyType.Escape));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(recording);
+    }
+
+    @Benchmark
+    public Object replay() throws IOException, InterruptedException {
+        return replay.replay(recording, false);
+    }
+}
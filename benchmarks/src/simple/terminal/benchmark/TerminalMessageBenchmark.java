@@ -0,0 +1,53 @@
+package simple.terminal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simple.terminal.BasicTerminal;
+import simple.terminal.HeadlessTerminal;
+import simple.terminal.command.CommandManager;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs a single line and renders it, wrapping it to the 80 columns of the screen. The longest lines are
+ * wrapped into more lines than the scrollback holds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerminalMessageBenchmark {
+    @Param({"40", "200", "10000", "4194304"})
+    public int messageLength;
+
+    @Param({"ascii", "cjk"})
+    public String text;
+
+    private BasicTerminal terminal;
+    private String message;
+
+    @Setup
+    public void setUp() throws IOException {
+        CommandManager commandManager = new CommandManager();
+        terminal = new BasicTerminal(commandManager, commandManager, new HeadlessTerminal(80, 24));
+        terminal.start();
+
+        char[] chars = new char[messageLength];
+        Arrays.fill(chars, text.equals("cjk") ? '\u65e5' : 'x');
+        message = new String(chars);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        terminal.stop();
+    }
+
+    @Benchmark
+    public void logAndFlush() {
+        terminal.log("bench", message);
+        terminal.flush();
+    }
+}
@@ -0,0 +1,178 @@
+package simple.terminal.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test for the terminal server: connects simulated telnet clients that type one key at a time and wait
+ * for the server to echo it, then reports the keystroke-echo latency percentiles over all clients.
+ *
+ * <pre>java -cp benchmarks.jar simple.terminal.benchmark.TerminalServerLoadTest host port clients keys</pre>
+ */
+public class TerminalServerLoadTest {
+    private static final int LINE_LENGTH = 40;
+    private static final int TIMEOUT = 10000;
+    private static final byte[] SIZE_REPORT = "\u001b[24;80R".getBytes(StandardCharsets.US_ASCII);
+
+    private static final class Client {
+        private final Socket socket;
+        private final InputStream input;
+        private final OutputStream output;
+        private final byte[] buffer = new byte[8192];
+        private int state = 0;
+
+        private Client(String host, int port) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(TIMEOUT);
+            socket.connect(new InetSocketAddress(host, port), TIMEOUT);
+            input = socket.getInputStream();
+            output = socket.getOutputStream();
+        }
+
+        private void send(int key) throws IOException {
+            output.write(key);
+            output.flush();
+        }
+
+        /**
+         * Reads the output until the printable character {@code expected} shows up, skipping telnet commands and
+         * escape sequences and answering the cursor position requests of the server.
+         */
+        private void await(char expected) throws IOException {
+            StringBuilder sequence = new StringBuilder();
+            while (true) {
+                int count = input.read(buffer);
+                if (count < 0) {
+                    throw new IOException("Connection closed by the server");
+                }
+                boolean found = false;
+                for (int i = 0; i < count; i++) {
+                    int b = buffer[i] & 0xff;
+                    switch (state) {
+                        case 0:
+                            if (b == 0xff) {
+                                state = 1;
+                            } else if (b == 0x1b) {
+                                sequence.setLength(0);
+                                state = 4;
+                            } else if (b == expected) {
+                                found = true;
+                            }
+                            break;
+                        case 1:
+                            state = b == 0xfa ? 2 : b >= 0xfb ? 3 : 0;
+                            break;
+                        case 2:
+                            state = b == 0xff ? 3 : 2;
+                            break;
+                        case 3:
+                            state = 0;
+                            break;
+                        case 4:
+                            state = b == '[' ? 5 : 0;
+                            break;
+                        case 5:
+                            sequence.append((char) b);
+                            if (b >= 0x40 && b <= 0x7e) {
+                                if (sequence.toString().equals("6n")) {
+                                    output.write(SIZE_REPORT);
+                                    output.flush();
+                                }
+                                state = 0;
+                            }
+                            break;
+                    }
+                }
+                if (found) {
+                    return;
+                }
+            }
+        }
+
+        private void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 2323;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int keys = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        long[] latencies = new long[clients * keys];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch connected = new CountDownLatch(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            int offset = c * keys;
+            threads[c] = new Thread(() -> {
+                Client client = null;
+                int k = -1;
+                try {
+                    client = new Client(host, port);
+                    client.await('>');
+                    connected.countDown();
+                    start.await();
+                    for (k = 0; k < keys; k++) {
+                        if (k > 0 && k % LINE_LENGTH == 0) {
+                            client.send(0x15);
+                        }
+                        char key = (char) ('a' + k % 26);
+                        long sent = System.nanoTime();
+                        client.send(key);
+                        client.await(key);
+                        latencies[offset + k] = System.nanoTime() - sent;
+                    }
+                } catch (IOException | InterruptedException e) {
+                    if (failures.getAndIncrement() == 0) {
+                        System.err.println("First client failure, after " + k + " keys: " + e);
+                    }
+                    connected.countDown();
+                } finally {
+                    if (client != null) {
+                        try {
+                            client.close();
+                        } catch (IOException e) {
+                            // ignored
+                        }
+                    }
+                }
+            }, "load-client-" + c);
+            threads[c].start();
+        }
+
+        connected.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        long[] measured = Arrays.stream(latencies).filter(latency -> latency > 0).sorted().toArray();
+        if (measured.length == 0) {
+            System.out.println("No keystroke was echoed, " + failures.get() + " clients failed");
+            return;
+        }
+        System.out.println(String.format("%d clients, %d keystrokes in %.2f s (%.0f/s), %d clients failed",
+                clients, measured.length, seconds, measured.length / seconds, failures.get()));
+        System.out.println(String.format("echo latency ms: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f",
+                percentile(measured, 50), percentile(measured, 90), percentile(measured, 99),
+                measured[measured.length - 1] / 1e6));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+}
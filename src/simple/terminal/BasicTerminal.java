@@ -33,46 +33,122 @@ import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.graphics.TextGraphics;
 import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
 import com.googlecode.lanterna.screen.Screen;
 import com.googlecode.lanterna.screen.TerminalScreen;
 import com.googlecode.lanterna.terminal.DefaultTerminalFactory;
-import com.googlecode.lanterna.terminal.TerminalFactory;
-import simple.terminal.command.LimitedList;
+import com.googlecode.lanterna.terminal.Terminal;
+import com.googlecode.lanterna.terminal.ansi.StreamBasedTerminal;
+import com.googlecode.lanterna.terminal.ansi.UnixLikeTerminal;
+import com.googlecode.lanterna.terminal.ansi.UnixTerminal;
+import simple.terminal.command.CommandLineTokenizer;
 import simple.terminal.command.TerminalCommand;
+import simple.terminal.logging.AsyncLogger;
+import simple.terminal.logging.LogSink;
+import simple.terminal.logging.ScreenSink;
+import simple.terminal.recording.SessionRecorder;
 import simple.terminal.validation.ValidationException;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class BasicTerminal implements TerminalLogger {
     public interface ActionListener {
         void terminalExit();
     }
 
+    private static final long INPUT_POLL_INTERVAL = 10;
+    private static final int MAX_INPUT_BATCH = 4096;
+    private static final String CONTINUATION_PROMPT = "> ";
+    private static final int MAX_PASTE_LENGTH = 1 << 20;
+    private static final long PASTE_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+    public static final int DEFAULT_SCROLLBACK_LINES = 10000;
+    public static final int DEFAULT_SCROLLBACK_CHARS = 1 << 20;
+
     private PredictionGenerator predictionGenerator;
-    private CommandExecutor commandExecutor;
+    private ExecutionEngine executionEngine;
+    private RenderScheduler renderScheduler;
+    private AsyncLogger outputLogger;
+    private final Session session;
+    private volatile Job foregroundJob;
+    private volatile SessionRecorder recorder;
     private final List<ActionListener> listeners = new LinkedList<>();
 
     private String cursorText = "_>";
+    private final Terminal terminal;
+    private final boolean bracketedPaste;
     private Screen screen;
     private TextGraphics textGraphics;
     private int inputLine = 0;
-    private int inputCursor = 0;
-    private StringBuffer terminalBuffer = new StringBuffer();
+    private final LineEditor editor = new LineEditor();
+    private StringBuilder continuation;
+    private int inputView = 0;
+    private boolean inputRendered = false;
+    private final StringBuilder typed = new StringBuilder();
+    private StringBuilder paste;
+    private long pasteActivity;
+    private boolean pasteTruncated;
+    private final ArrayDeque<String> pastedLines = new ArrayDeque<>();
+    private final CommandLineTokenizer tokenizer = new CommandLineTokenizer();
+
+    private ScrollbackBuffer scrollback = new ScrollbackBuffer(DEFAULT_SCROLLBACK_LINES, DEFAULT_SCROLLBACK_CHARS);
+    private int scrollOffset = 0;
+    private boolean repaint = false;
+
+    private StringBuilder searchQuery;
+    private int searchMatch = -1;
+    private boolean searchFailed = false;
 
-    private LimitedList<String> history = new LimitedList<>(10);
+    private CommandHistory history;
     private int historyIndex = 0;
 
-    private boolean running = false;
+    private volatile boolean running = false;
 
     public BasicTerminal(PredictionGenerator predictionGenerator, CommandExecutor commandExecutor) throws IOException {
+        this(predictionGenerator, commandExecutor, createTerminal());
+    }
+
+    public BasicTerminal(PredictionGenerator predictionGenerator, CommandExecutor commandExecutor, Terminal terminal) throws IOException {
+        this(predictionGenerator, commandExecutor, terminal, new Session("local", Paths.get("")), null);
+    }
+
+    /**
+     * Creates a terminal for {@code session}. When {@code eventLoop} is not null, frames are rendered on it
+     * instead of a dedicated thread and the caller drives the input through {@link #poll()}.
+     */
+    public BasicTerminal(PredictionGenerator predictionGenerator, CommandExecutor commandExecutor, Terminal terminal,
+                         Session session, ScheduledExecutorService eventLoop) throws IOException {
+        this.terminal = terminal;
+        this.bracketedPaste = terminal instanceof StreamBasedTerminal;
+        if (bracketedPaste) {
+            ((StreamBasedTerminal) terminal).addKeyDecodingProfile(BracketedPaste.PROFILE);
+        }
+        screen = new TerminalScreen(terminal);
+
         this.predictionGenerator = predictionGenerator;
-        this.commandExecutor = commandExecutor;
+        this.executionEngine = new ExecutionEngine(commandExecutor);
+        this.renderScheduler = eventLoop == null ? new RenderScheduler(this::renderFrame)
+                : new RenderScheduler(this::renderFrame, RenderScheduler.DEFAULT_FRAME_RATE, eventLoop);
+        this.session = session;
+        this.history = session.getHistory();
+        this.historyIndex = history.size();
+        session.setTerminal(this);
+        this.outputLogger = new AsyncLogger(AsyncLogger.OverflowPolicy.BLOCK).addSink(new ScreenSink(this));
+    }
 
-        TerminalFactory factory = new DefaultTerminalFactory();
-        screen = new TerminalScreen(factory.createTerminal());
+    private static Terminal createTerminal() throws IOException {
+        boolean windows = System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+        if (System.console() != null && !windows) {
+            return new UnixTerminal(System.in, System.out, Charset.defaultCharset(), null, UnixLikeTerminal.CtrlCBehaviour.TRAP);
+        }
+        return new DefaultTerminalFactory().createTerminal();
     }
 
     public void addListener(ActionListener listener) {
@@ -87,8 +163,54 @@ public class BasicTerminal implements TerminalLogger {
         }
     }
 
-    public void setCursorText(String cursorText) {
+    public synchronized void setCursorText(String cursorText) {
         this.cursorText = cursorText;
+        this.inputRendered = false;
+    }
+
+    public synchronized void setHistory(CommandHistory history) {
+        this.history = history;
+        this.session.setHistory(history);
+        this.historyIndex = history.size();
+        for (int i = 0; i < history.size(); i++) {
+            predictionGenerator.accepted(history.get(i));
+        }
+    }
+
+    public synchronized void setScrollback(int maxLines, int maxChars) {
+        this.scrollback = new ScrollbackBuffer(maxLines, maxChars);
+        this.scrollOffset = 0;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean hasForegroundJob() {
+        return foregroundJob != null;
+    }
+
+    /**
+     * Adds a sink receiving the output of every command, next to the screen.
+     */
+    public void addOutputSink(LogSink sink) {
+        outputLogger.addSink(sink);
+    }
+
+    /**
+     * Records the keys received from now on and the output of every command to {@code file}, until the terminal
+     * stops. See {@link SessionRecorder} for the format.
+     */
+    public SessionRecorder record(Path file) throws IOException {
+        TerminalSize size = screen.getTerminalSize();
+        SessionRecorder recorder = new SessionRecorder(file, size.getColumns(), size.getRows());
+        addOutputSink(recorder);
+        this.recorder = recorder;
+        return recorder;
     }
 
     private void fireTerminalExit() {
@@ -98,56 +220,304 @@ public class BasicTerminal implements TerminalLogger {
     }
 
     private void executeCommand(String commandBuffer) {
-        String[] parts = commandBuffer.split(" ");
-        String command = parts[0];
-        String[] values = null;
-        if (parts.length > 1) {
-            values = Arrays.copyOfRange(parts, 1, parts.length);
+        int count;
+        try {
+            count = tokenizer.tokenize(commandBuffer);
+        } catch (ValidationException e) {
+            message(e.getMessage());
+            return;
         }
-        TerminalCommand.Params params = new TerminalCommand.Params(values, this);
+
+        boolean background = count > 0 && tokenizer.isOperator(count - 1, '&');
+        if (background) {
+            count--;
+            commandBuffer = commandBuffer.substring(0, commandBuffer.lastIndexOf('&')).trim();
+        }
+        if (count == 0) {
+            return;
+        }
+
         try {
-            commandExecutor.execute(command, params);
+            Pipeline pipeline = Pipeline.parse(tokenizer, 0, count);
+            Job job = executionEngine.submit(commandBuffer, pipeline, outputLogger, session, background, this::jobFinished);
+            if (background) {
+                message("[" + job.getId() + "] " + commandBuffer);
+            } else {
+                foregroundJob = job;
+            }
         } catch (ValidationException e) {
             message(e.getMessage());
         }
+    }
+
+    private void jobFinished(Job job) {
+        outputLogger.flush();
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            if (job == foregroundJob) {
+                foregroundJob = null;
+            }
+            if (job.getState() == Job.State.FAILED) {
+                message(job.getError());
+            }
+            if (job.isBackground()) {
+                message(job.toString());
+            }
+            resetCursor();
+        }
+    }
+
+    private void cancelForegroundJob() {
+        Job job = foregroundJob;
+        if (job != null) {
+            message("^C");
+            job.cancel();
+        } else {
+            editor.clear();
+            continuation = null;
+            pastedLines.clear();
+        }
+    }
+
+    private void resetCursor() {
+        renderScheduler.invalidate();
+    }
+
+    private synchronized void renderFrame() {
+        List<String> lines = renderScheduler.drain();
+        if (lines == null) {
+            return;
+        }
+        lines.forEach(scrollback::add);
+
+        TerminalSize terminalSize = screen.getTerminalSize();
+        int lastLine = terminalSize.getRows() - 1;
+        if (scrollOffset > 0) {
+            inputLine = Math.min(lastLine, inputLine + lines.size());
+            renderScrollback(terminalSize);
+            screen.setCursorPosition(null);
+            inputRendered = false;
+        } else {
+            boolean moved = repaint || !lines.isEmpty();
+            if (repaint) {
+                inputLine = Math.min(lastLine, inputLine + lines.size());
+                renderOutput(terminalSize);
+                repaint = false;
+            } else {
+                int skipped = Math.max(0, lines.size() - lastLine);
+                int overflow = inputLine + lines.size() - skipped - lastLine;
+                if (overflow > 0) {
+                    screen.scrollLines(0, terminalSize.getRows(), overflow);
+                    inputLine -= overflow;
+                }
+                for (int i = skipped; i < lines.size(); i++) {
+                    clearLine(inputLine, terminalSize);
+                    TextLayout.draw(textGraphics, 0, inputLine++, lines.get(i), terminalSize.getColumns());
+                }
+            }
+
+            renderInput(terminalSize, moved);
+        }
+        try {
+            screen.refresh();
+        } catch (IOException e) {
+            running = false;
+        }
+    }
+
+    private void renderOutput(TerminalSize terminalSize) {
+        int first = scrollback.size() - inputLine;
+        for (int line = 0; line < inputLine; line++) {
+            clearLine(line, terminalSize);
+            if (first + line >= 0) {
+                TextLayout.draw(textGraphics, 0, line, scrollback.get(first + line), terminalSize.getColumns());
+            }
+        }
+    }
+
+    private void renderScrollback(TerminalSize terminalSize) {
+        int page = terminalSize.getRows() - 1;
+        int first = scrollback.size() - scrollOffset - page;
+        for (int line = 0; line < page; line++) {
+            clearLine(line, terminalSize);
+            if (first + line >= 0) {
+                TextLayout.draw(textGraphics, 0, line, scrollback.get(first + line), terminalSize.getColumns());
+            }
+        }
+        clearLine(page, terminalSize);
+        textGraphics.putString(0, page, "-- scrollback " + Math.max(1, first + 1) + "-" + (first + page)
+                + " of " + scrollback.size() + " (PgUp/PgDn) --");
+    }
 
+    private void scrollPage(int direction) {
+        int page = screen.getTerminalSize().getRows() - 1;
+        int maxOffset = Math.max(0, scrollback.size() - page);
+        int offset = Math.max(0, Math.min(maxOffset, scrollOffset + direction * page));
+        if (scrollOffset > 0 && offset == 0) {
+            repaint = true;
+        }
+        scrollOffset = offset;
     }
 
-    private void resetCursor() throws IOException {
-        echoInput();
-        inputCursor = Math.min(terminalBuffer.length(), inputCursor);
-        screen.setCursorPosition(new TerminalPosition(inputCursor + cursorText.length(), inputLine));
-        screen.refresh();
+    private void clearLine(int line, TerminalSize terminalSize) {
+        textGraphics.drawLine(0, line, terminalSize.getColumns() - 1, line, ' ');
+    }
+
+    /**
+     * Draws the visible part of the input line, scrolled horizontally to keep the cursor on screen. Unless the
+     * line moved or the view scrolled, only the cells from the first edited position are drawn again.
+     */
+    private void renderInput(TerminalSize terminalSize, boolean moved) {
+        if (searchQuery != null) {
+            String match = searchMatch >= 0 ? history.get(searchMatch) : "";
+            clearLine(inputLine, terminalSize);
+            textGraphics.putString(0, inputLine, searchPrefix() + searchQuery + "': " + match);
+            screen.setCursorPosition(new TerminalPosition(searchPrefix().length() + searchQuery.length(), inputLine));
+            inputRendered = false;
+            return;
+        }
+
+        String prompt = prompt();
+        int columns = terminalSize.getColumns();
+        int width = Math.max(0, columns - prompt.length() - 1);
+        int cursor = editor.getCursor();
+        int view = Math.min(inputView, cursor);
+        if (cursor > view + width) {
+            view = cursor - width;
+        }
+
+        int from = editor.getChangedFrom();
+        if (moved || !inputRendered || view != inputView) {
+            clearLine(inputLine, terminalSize);
+            textGraphics.putString(0, inputLine, prompt);
+            from = view;
+        }
+        if (from != Integer.MAX_VALUE) {
+            from = Math.max(from, view);
+            int end = Math.min(editor.length(), view + columns - prompt.length());
+            for (int i = from; i < end; i++) {
+                textGraphics.setCharacter(prompt.length() + i - view, inputLine, editor.charAt(i));
+            }
+            int cleared = prompt.length() + Math.max(from, end) - view;
+            if (cleared < columns) {
+                textGraphics.drawLine(cleared, inputLine, columns - 1, inputLine, ' ');
+            }
+        }
+        editor.markRendered();
+        inputView = view;
+        inputRendered = true;
+        screen.setCursorPosition(new TerminalPosition(prompt.length() + cursor - view, inputLine));
+    }
+
+    private String prompt() {
+        return continuation != null ? CONTINUATION_PROMPT : cursorText;
+    }
+
+    private String searchPrefix() {
+        return searchFailed ? "(failing reverse-i-search)`" : "(reverse-i-search)`";
+    }
+
+    private void startSearch() {
+        searchQuery = new StringBuilder();
+        searchMatch = -1;
+        searchFailed = false;
+    }
+
+    private void findInHistory(int before) {
+        int match = history.search(searchQuery.toString(), before);
+        searchFailed = match < 0 && searchQuery.length() > 0;
+        if (match >= 0 || searchQuery.length() == 0) {
+            searchMatch = match;
+        }
+    }
+
+    private void endSearch(boolean accept) {
+        if (accept && searchMatch >= 0) {
+            editor.set(history.get(searchMatch));
+            historyIndex = searchMatch;
+        }
+        searchQuery = null;
     }
 
-    private void echoInput() {
-        textGraphics.putString(0, inputLine, cursorText + terminalBuffer.toString());
+    private boolean processSearch(KeyStroke key) {
+        switch (key.getKeyType()) {
+            case Character:
+                if (key.isCtrlDown() && key.getCharacter() == 'r') {
+                    findInHistory(searchMatch >= 0 ? searchMatch : history.size());
+                } else if (key.isCtrlDown()) {
+                    endSearch(false);
+                } else {
+                    searchQuery.append(key.getCharacter());
+                    findInHistory(searchMatch >= 0 ? searchMatch + 1 : history.size());
+                }
+                return true;
+            case Backspace:
+                if (searchQuery.length() > 0) {
+                    searchQuery.setLength(searchQuery.length() - 1);
+                    findInHistory(history.size());
+                }
+                return true;
+            case Enter:
+                endSearch(true);
+                return false;
+            default:
+                endSearch(true);
+                return true;
+        }
     }
 
-    private void executeCommand() {
-        String command = terminalBuffer.toString().trim();
+    private void submitLine() {
+        String line = editor.toString();
+        if (foregroundJob != null) {
+            // the line and any queued paste lines wait in the editor until the job is done
+            if (!line.trim().isEmpty()) {
+                message("A command is still running, press Ctrl+C to cancel it!");
+            }
+            return;
+        }
+        if (continuation != null || !line.trim().isEmpty()) {
+            message(prompt() + line);
+        }
+        editor.clear();
+        inputRendered = false;
+        if (isContinued(line)) {
+            continuation = (continuation == null ? new StringBuilder() : continuation).append(line, 0, line.length() - 1);
+            return;
+        }
+
+        String command = (continuation == null ? line : continuation.append(line).toString()).trim();
+        continuation = null;
+        if (!pastedLines.isEmpty()) {
+            editor.set(pastedLines.poll());
+        }
         if (command.length() > 0) {
-            message(cursorText + command);
             executeCommand(command);
-            history.add(command);
+            predictionGenerator.accepted(command);
+            try {
+                history.add(command);
+            } catch (IOException e) {
+                message("Could not save the command history: " + e.getMessage());
+            }
             historyIndex = history.size();
         }
     }
 
-    private void message(String message) {
-        TerminalSize terminalSize = screen.getTerminalSize();
-        while (message.length() > terminalSize.getColumns()) {
-            String localMsg = message.substring(0, terminalSize.getColumns());
-            message(localMsg);
-            message = message.substring(terminalSize.getColumns());
-        }
-        if (message.length() > 0) {
-            textGraphics.putString(0, inputLine++, message);
-            if (inputLine > terminalSize.getRows() - 1) {
-                screen.scrollLines(0, screen.getTerminalSize().getRows(), 1);
-                inputLine--;
-            }
+    private static boolean isContinued(String line) {
+        int backslashes = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            backslashes++;
         }
+        return backslashes % 2 == 1;
+    }
+
+    /**
+     * Wraps {@code message} to the screen width and queues its lines; lines that would not fit in the scrollback
+     * are dropped without being copied.
+     */
+    private synchronized void message(String message) {
+        TextLayout.wrap(message, screen.getTerminalSize().getColumns(), scrollback.getMaxLines(), renderScheduler::submit);
     }
 
     @Override
@@ -155,13 +525,37 @@ public class BasicTerminal implements TerminalLogger {
         message(source + ": " + message);
     }
 
-    private void executePrediction() throws IOException {
-        List<String> predictions = predictionGenerator.generate(terminalBuffer.toString());
-        message(cursorText + terminalBuffer.toString());
+    @Override
+    public synchronized void log(String source, List<String> messages) {
+        for (String message : messages) {
+            message(source + ": " + message);
+        }
+    }
+
+    private void executePrediction() {
+        String input = editor.toString();
+        List<String> predictions = predictionGenerator.generate(input, session);
+        message(prompt() + input);
         predictions.forEach(this::message);
         resetCursor();
     }
 
+    public boolean listJobs(TerminalCommand.Params params) {
+        for (Job job : executionEngine.getJobs()) {
+            params.getLogger().log(Main.CMD_JOBS, job.toString());
+        }
+        return true;
+    }
+
+    public boolean killJob(TerminalCommand.Params params) {
+        int id = params.get("job");
+        Job job = executionEngine.getJob(id);
+        if (job == null) {
+            throw new ValidationException("No job [" + id + "]");
+        }
+        return job.cancel();
+    }
+
     public boolean exitTerminal(TerminalCommand.Params params) {
         message("Exiting terminal ...");
         fireTerminalExit();
@@ -174,66 +568,291 @@ public class BasicTerminal implements TerminalLogger {
             return;
         }
 
+        start();
+        while (running) {
+            if (!poll()) {
+                waitForInput();
+            }
+        }
+        stop();
+    }
+
+    /**
+     * Handles the input received so far without blocking, returns false when there was none.
+     */
+    public boolean poll() throws IOException {
+        KeyStroke key = nextKey();
+        if (key == null) {
+            if (paste != null && System.nanoTime() - pasteActivity > PASTE_TIMEOUT) {
+                synchronized (this) {
+                    endPaste();
+                    resetCursor();
+                }
+            }
+            return false;
+        }
+        synchronized (this) {
+            processInput(key);
+            resetCursor();
+        }
+        return true;
+    }
+
+    /**
+     * Handles the given key and every key already waiting behind it, up to a batch limit, so that a burst of
+     * input is rendered once. Runs of plain characters and pasted text reach the editor in a single insert.
+     * A paste whose end marker never arrives ends after {@link #PASTE_TIMEOUT} without input, and Ctrl+C drops
+     * it.
+     */
+    private void processInput(KeyStroke key) throws IOException {
+        int count = 0;
+        do {
+            if (key == BracketedPaste.START) {
+                flushTyped();
+                paste = new StringBuilder();
+                pasteActivity = System.nanoTime();
+                pasteTruncated = false;
+            } else if (key == BracketedPaste.END) {
+                endPaste();
+            } else if (paste != null && key.getKeyType() == KeyType.Character && key.isCtrlDown()
+                    && key.getCharacter() == 'c') {
+                paste = null;
+                processKey(key);
+            } else if (paste != null && key.getKeyType() != KeyType.EOF) {
+                appendPaste(key);
+            } else if (key.getKeyType() == KeyType.Character && !key.isCtrlDown() && !key.isAltDown()
+                    && searchQuery == null && scrollOffset == 0) {
+                typed.append(key.getCharacter());
+            } else {
+                flushTyped();
+                processKey(key);
+            }
+        } while (running && ++count < MAX_INPUT_BATCH && (key = nextKey()) != null);
+        flushTyped();
+    }
+
+    private KeyStroke nextKey() throws IOException {
+        KeyStroke key = screen.pollInput();
+        SessionRecorder recorder = this.recorder;
+        if (key != null && recorder != null) {
+            try {
+                recorder.key(key);
+            } catch (IOException e) {
+                this.recorder = null;
+                message("Recording stopped: " + e.getMessage());
+            }
+        }
+        return key;
+    }
+
+    private void flushTyped() {
+        if (typed.length() > 0) {
+            editor.insert(typed);
+            typed.setLength(0);
+        }
+    }
+
+    private void appendPaste(KeyStroke key) {
+        pasteActivity = System.nanoTime();
+        if (paste.length() >= MAX_PASTE_LENGTH) {
+            pasteTruncated = true;
+            return;
+        }
+        switch (key.getKeyType()) {
+            case Character:
+                paste.append(key.getCharacter());
+                break;
+            case Enter:
+                paste.append('\n');
+                break;
+            case Tab:
+                paste.append(' ');
+                break;
+        }
+    }
+
+    /**
+     * Inserts the pasted text at the cursor. Pasted newlines never run a command: the first line goes to the
+     * editor and the remaining lines are queued, each one loaded into the editor after the previous is submitted.
+     */
+    private void endPaste() {
+        if (paste == null) {
+            return;
+        }
+        String text = paste.toString();
+        paste = null;
+        if (pasteTruncated) {
+            message("Paste truncated to " + MAX_PASTE_LENGTH + " characters");
+        }
+        if (scrollOffset > 0) {
+            scrollOffset = 0;
+            repaint = true;
+        }
+        if (searchQuery != null) {
+            endSearch(true);
+        }
+
+        int newline = text.indexOf('\n');
+        if (newline < 0) {
+            editor.insert(text);
+            return;
+        }
+        editor.insert(text.substring(0, newline));
+        int queued = pastedLines.size();
+        for (int start = newline + 1; start < text.length(); ) {
+            int end = text.indexOf('\n', start);
+            end = end < 0 ? text.length() : end;
+            if (end > start) {
+                pastedLines.add(text.substring(start, end));
+            }
+            start = end + 1;
+        }
+        if (pastedLines.size() > queued) {
+            message("Pasted " + (pastedLines.size() - queued) + " more line(s), Enter runs each, Ctrl+C drops them");
+        }
+    }
+
+    private void processKey(KeyStroke key) {
+        if (scrollOffset > 0 && key.getKeyType() != KeyType.PageUp && key.getKeyType() != KeyType.PageDown) {
+            scrollOffset = 0;
+            repaint = true;
+        }
+        if (searchQuery != null && processSearch(key)) {
+            return;
+        }
+        switch (key.getKeyType()) {
+            case Character:
+                if (key.isCtrlDown()) {
+                    processControl(key.getCharacter());
+                } else if (key.isAltDown() && key.getCharacter() == 'b') {
+                    editor.moveWordLeft();
+                } else if (key.isAltDown() && key.getCharacter() == 'f') {
+                    editor.moveWordRight();
+                } else {
+                    editor.insert(key.getCharacter());
+                }
+                break;
+            case Backspace:
+                editor.deleteBackward();
+                break;
+            case Delete:
+                editor.deleteForward();
+                break;
+            case ArrowUp:
+                historyIndex = Math.max(0, historyIndex - 1);
+                if (history.size() > 0) {
+                    editor.set(history.get(historyIndex));
+                }
+                break;
+            case ArrowDown:
+                historyIndex = Math.max(0, Math.min(history.size() - 1, historyIndex + 1));
+                if (history.size() > 0) {
+                    editor.set(history.get(historyIndex));
+                }
+                break;
+            case ArrowLeft:
+                if (key.isCtrlDown()) {
+                    editor.moveWordLeft();
+                } else {
+                    editor.moveLeft();
+                }
+                break;
+            case ArrowRight:
+                if (key.isCtrlDown()) {
+                    editor.moveWordRight();
+                } else {
+                    editor.moveRight();
+                }
+                break;
+            case Home:
+                editor.moveHome();
+                break;
+            case End:
+                editor.moveEnd();
+                break;
+            case PageUp:
+                scrollPage(1);
+                break;
+            case PageDown:
+                scrollPage(-1);
+                break;
+            case Tab:
+                executePrediction();
+                break;
+            case Enter:
+                submitLine();
+                break;
+            case Escape:
+                exitTerminal(null);
+                break;
+            case EOF:
+                running = false;
+                break;
+        }
+    }
+
+    private void processControl(char c) {
+        switch (c) {
+            case 'c':
+                cancelForegroundJob();
+                break;
+            case 'r':
+                startSearch();
+                break;
+            case 'a':
+                editor.moveHome();
+                break;
+            case 'e':
+                editor.moveEnd();
+                break;
+            case 'k':
+                editor.killToEnd();
+                break;
+            case 'u':
+                editor.killToStart();
+                break;
+            case 'w':
+                editor.killWordBackward();
+                break;
+            case 'y':
+                editor.yank();
+                break;
+        }
+    }
+
+    public void start() throws IOException {
         running = true;
         screen.startScreen();
+        if (bracketedPaste) {
+            BracketedPaste.enable(terminal);
+        }
         textGraphics = screen.newTextGraphics();
         resetCursor();
+    }
 
-        while (running) {
-            KeyStroke key = screen.readInput();
-            if (key != null) {
-                switch (key.getKeyType()) {
-                    case Character:
-                        terminalBuffer.insert(inputCursor, key.getCharacter());
-                        inputCursor++;
-                        break;
-                    case Backspace:
-                        if (inputCursor > 0) {
-                            int position = cursorText.length() + terminalBuffer.length() - 1;
-                            terminalBuffer.deleteCharAt(inputCursor - 1);
-                            textGraphics.putString(position, inputLine, " ");
-                            inputCursor = Math.max(0, inputCursor - 1);
-                        }
-                        break;
-                    case Delete:
-                        if (inputCursor >= 0 && inputCursor < terminalBuffer.length()) {
-                            int position = cursorText.length() + terminalBuffer.length() - 1;
-                            terminalBuffer.deleteCharAt(inputCursor);
-                            textGraphics.putString(position, inputLine, " ");
-                        }
-                        break;
-                    case ArrowUp:
-                        historyIndex = Math.max(0, historyIndex - 1);
-                        if (history.size() > 0) {
-                            terminalBuffer = new StringBuffer(history.get(historyIndex));
-                        }
-                        break;
-                    case ArrowDown:
-                        historyIndex = Math.max(0, Math.min(history.size() - 1, historyIndex + 1));
-                        if (history.size() > 0) {
-                            terminalBuffer = new StringBuffer(history.get(historyIndex));
-                        }
-                        break;
-                    case ArrowLeft:
-                        inputCursor = Math.max(0, inputCursor - 1);
-                        break;
-                    case ArrowRight:
-                        inputCursor = Math.min(terminalBuffer.length(), inputCursor + 1);
-                        break;
-                    case Tab:
-                        executePrediction();
-                        break;
-                    case Enter:
-                        executeCommand();
-                        terminalBuffer = new StringBuffer();
-                        break;
-                    case Escape:
-                        exitTerminal(null);
-                        break;
-                }
-                resetCursor();
-            }
+    public void stop() throws IOException {
+        running = false;
+        executionEngine.shutdown();
+        outputLogger.close();
+        renderScheduler.shutdown();
+        renderFrame();
+        if (bracketedPaste) {
+            BracketedPaste.disable(terminal);
         }
         screen.stopScreen();
+        history.close();
+    }
+
+    public void flush() {
+        renderFrame();
+    }
+
+    private void waitForInput() {
+        try {
+            Thread.sleep(INPUT_POLL_INTERVAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
     }
 }
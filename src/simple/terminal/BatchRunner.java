@@ -0,0 +1,167 @@
+package simple.terminal;
+
+import simple.terminal.command.CommandLineTokenizer;
+import simple.terminal.validation.ValidationException;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs command scripts without a screen. Every line of a script is executed in order, command output is
+ * buffered per script and written to the output in large chunks, and errors are reported with the script
+ * name and line number. The output is flushed before every error, so both streams stay in order when they
+ * end up in the same place. Independent scripts can run in parallel, one script per thread.
+ */
+public class BatchRunner {
+    public static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private final CommandExecutor commandExecutor;
+    private final Writer output;
+    private final PrintStream errors;
+    private final ExecutorService stageExecutor;
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public BatchRunner(CommandExecutor commandExecutor, OutputStream output, PrintStream errors) {
+        this.commandExecutor = commandExecutor;
+        this.output = new BufferedWriter(new OutputStreamWriter(output, Charset.defaultCharset()), OUTPUT_BUFFER_SIZE);
+        this.errors = errors;
+        AtomicInteger stageId = new AtomicInteger(1);
+        this.stageExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "batch-stage-" + stageId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private class ScriptLogger implements TerminalLogger {
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public synchronized void log(String source, String message) {
+            buffer.append(source).append(": ").append(message).append('\n');
+            if (buffer.length() >= OUTPUT_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        private synchronized void flush() {
+            if (buffer.length() == 0) {
+                return;
+            }
+            synchronized (output) {
+                try {
+                    output.append(buffer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            buffer.setLength(0);
+        }
+    }
+
+    public void run(String name, BufferedReader script) throws IOException {
+        CommandLineTokenizer tokenizer = new CommandLineTokenizer();
+        ScriptLogger logger = new ScriptLogger();
+        Session session = new Session(name, Paths.get(""));
+        int lineNumber = 0;
+        try {
+            for (String line = script.readLine(); line != null; line = script.readLine()) {
+                lineNumber++;
+                String command = line.trim();
+                if (command.isEmpty() || command.startsWith("#")) {
+                    continue;
+                }
+                commands.incrementAndGet();
+                try {
+                    int count = tokenizer.tokenize(command);
+                    if (count > 0 && tokenizer.isOperator(count - 1, '&')) {
+                        count--;
+                    }
+                    if (count > 0) {
+                        Pipeline.parse(tokenizer, 0, count).run(commandExecutor, logger, session, stageExecutor);
+                    }
+                } catch (ValidationException e) {
+                    failures.incrementAndGet();
+                    error(logger, name + ":" + lineNumber + ": " + e.getMessage());
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    error(logger, name + ":" + lineNumber + ": Command execution failed: " + e);
+                }
+            }
+        } finally {
+            logger.flush();
+        }
+    }
+
+    /**
+     * Writes the output the script logged so far through to the output stream, then the error.
+     */
+    private void error(ScriptLogger logger, String message) throws IOException {
+        try {
+            logger.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        synchronized (output) {
+            output.flush();
+            errors.println(message);
+            errors.flush();
+        }
+    }
+
+    public void run(List<Path> scripts, int parallelism) throws IOException, InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, scripts.size())));
+        try {
+            List<Future<Void>> results = new ArrayList<>(scripts.size());
+            for (Path script : scripts) {
+                results.add(workers.submit(() -> {
+                    try (BufferedReader reader = Files.newBufferedReader(script, Charset.defaultCharset())) {
+                        run(script.toString(), reader);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    public void flush() throws IOException {
+        synchronized (output) {
+            output.flush();
+        }
+    }
+
+    public void shutdown() {
+        stageExecutor.shutdownNow();
+    }
+
+    public long getCommands() {
+        return commands.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+}
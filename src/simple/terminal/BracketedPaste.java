@@ -0,0 +1,85 @@
+package simple.terminal;
+
+import com.googlecode.lanterna.input.CharacterPattern;
+import com.googlecode.lanterna.input.KeyDecodingProfile;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import com.googlecode.lanterna.terminal.Terminal;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bracketed paste support. Once enabled, the terminal wraps pasted text in {@code ESC[200~ ... ESC[201~}, which
+ * the decoding profile turns into the {@link #START} and {@link #END} markers, compared by identity.
+ */
+public final class BracketedPaste {
+    public static final KeyStroke START = new KeyStroke(KeyType.Unknown);
+    public static final KeyStroke END = new KeyStroke(KeyType.Unknown);
+
+    public static final KeyDecodingProfile PROFILE = new KeyDecodingProfile() {
+        private final List<CharacterPattern> patterns = Arrays.asList(
+                new Marker("\u001b[200~", START), new Marker("\u001b[201~", END));
+
+        @Override
+        public Collection<CharacterPattern> getPatterns() {
+            return patterns;
+        }
+    };
+
+    private static final String ENABLE = "\u001b[?2004h";
+    private static final String DISABLE = "\u001b[?2004l";
+
+    private BracketedPaste() {
+    }
+
+    public static void enable(Terminal terminal) throws IOException {
+        write(terminal, ENABLE);
+    }
+
+    public static void disable(Terminal terminal) throws IOException {
+        write(terminal, DISABLE);
+    }
+
+    private static void write(Terminal terminal, String sequence) throws IOException {
+        for (int i = 0; i < sequence.length(); i++) {
+            terminal.putCharacter(sequence.charAt(i));
+        }
+        terminal.flush();
+    }
+
+    private static final class Marker implements CharacterPattern {
+        private final String sequence;
+        private final KeyStroke result;
+
+        private Marker(String sequence, KeyStroke result) {
+            this.sequence = sequence;
+            this.result = result;
+        }
+
+        @Override
+        public KeyStroke getResult(List<Character> matching) {
+            return result;
+        }
+
+        @Override
+        public boolean isCompleteMatch(List<Character> matching) {
+            return matching.size() == sequence.length() && matches(matching);
+        }
+
+        @Override
+        public boolean matches(List<Character> matching) {
+            if (matching.size() > sequence.length()) {
+                return false;
+            }
+            for (int i = 0; i < matching.size(); i++) {
+                if (matching.get(i) != sequence.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
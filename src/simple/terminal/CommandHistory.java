@@ -0,0 +1,213 @@
+package simple.terminal;
+
+import simple.terminal.command.LimitedList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Command history kept in a {@link LimitedList} and, optionally, in an append only file with one entry
+ * per line. At startup only the tail of the file holding the last {@code capacity} entries is read, and
+ * the file is rewritten with just those entries once it grew past the compaction threshold and to at least
+ * twice its size after the last rewrite, so a history whose kept entries alone exceed the threshold is not
+ * rewritten on every add.
+ * Substring searches use a {@link HistoryIndex} built on the first search and kept up to date afterwards.
+ */
+public class CommandHistory implements Closeable {
+    public static final int DEFAULT_CAPACITY = 10000;
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 4 << 20;
+
+    private final LimitedList<String> entries;
+    private final Path file;
+    private final long compactionThreshold;
+    private FileChannel channel;
+    private long compactedSize = 0;
+    private HistoryIndex index;
+    private int added = 0;
+
+    public CommandHistory(int capacity) {
+        this.entries = new LimitedList<>(capacity);
+        this.file = null;
+        this.compactionThreshold = 0;
+    }
+
+    public CommandHistory(int capacity, Path file) throws IOException {
+        this(capacity, file, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public CommandHistory(int capacity, Path file, long compactionThreshold) throws IOException {
+        this.entries = new LimitedList<>(capacity);
+        this.file = file;
+        this.compactionThreshold = compactionThreshold;
+        if (Files.exists(file)) {
+            load();
+        }
+        channel = open();
+    }
+
+    public void add(String entry) throws IOException {
+        if (entry == null) {
+            return;
+        }
+        append(entry);
+        if (channel != null) {
+            channel.write(ByteBuffer.wrap(encode(entry)));
+            if (channel.size() > compactedSize + Math.max(compactionThreshold, compactedSize)) {
+                compact();
+            }
+        }
+    }
+
+    public String get(int index) {
+        return entries.get(index);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the index of the newest entry before {@code before} containing {@code query}, or -1.
+     */
+    public int search(String query, int before) {
+        before = Math.min(before, entries.size());
+        if (query.isEmpty()) {
+            return -1;
+        } else if (query.length() < HistoryIndex.GRAM_LENGTH) {
+            for (int i = before - 1; i >= 0; i--) {
+                if (entries.get(i).contains(query)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int first = added - entries.size();
+        if (index == null) {
+            index = new HistoryIndex();
+            for (int i = 0; i < entries.size(); i++) {
+                index.add(first + i, entries.get(i));
+            }
+        }
+        int sequence = index.search(query, first + before, first, value -> entries.get(value - first));
+        return sequence < 0 ? -1 : sequence - first;
+    }
+
+    private void append(String entry) {
+        if (entry == null || entries.getMaxSize() == 0) {
+            return;
+        }
+        entries.add(entry);
+        if (index != null) {
+            index.add(added, entry);
+            if ((added + 1) % entries.getMaxSize() == 0) {
+                index.prune(added + 1 - entries.size());
+            }
+        }
+        added++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void load() throws IOException {
+        try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = input.size();
+            long offset = Math.max(0, size - Integer.MAX_VALUE);
+            MappedByteBuffer buffer = input.map(FileChannel.MapMode.READ_ONLY, offset, size - offset);
+
+            int end = buffer.limit();
+            if (end > 0 && buffer.get(end - 1) == '\n') {
+                end--;
+            }
+            int start = end;
+            int lines = 0;
+            while (start > 0 && lines < entries.getMaxSize()) {
+                if (buffer.get(start - 1) == '\n') {
+                    lines++;
+                    if (lines == entries.getMaxSize()) {
+                        break;
+                    }
+                }
+                start--;
+            }
+
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            for (int position = start; position <= end; position++) {
+                if (position == end || buffer.get(position) == '\n') {
+                    if (line.size() > 0) {
+                        append(decode(line.toByteArray()));
+                    }
+                    line.reset();
+                } else {
+                    line.write(buffer.get(position));
+                }
+            }
+        }
+    }
+
+    private void compact() throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < entries.size(); i++) {
+                output.write(ByteBuffer.wrap(encode(entries.get(i))));
+            }
+        }
+        channel.close();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open();
+        compactedSize = channel.size();
+    }
+
+    private static byte[] encode(String entry) {
+        StringBuilder line = new StringBuilder(entry.length() + 1);
+        for (int i = 0; i < entry.length(); i++) {
+            char c = entry.charAt(i);
+            if (c == '\\') {
+                line.append("\\\\");
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else {
+                line.append(c);
+            }
+        }
+        return line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(byte[] bytes) {
+        String line = new String(bytes, StandardCharsets.UTF_8);
+        if (line.indexOf('\\') < 0) {
+            return line;
+        }
+        StringBuilder entry = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                entry.append(next == 'n' ? '\n' : next);
+            } else {
+                entry.append(c);
+            }
+        }
+        return entry.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package simple.terminal;
+
+import simple.terminal.validation.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutionEngine {
+    public static final int DEFAULT_WORKERS = 4;
+    public static final int DEFAULT_QUEUE_SIZE = 16;
+    private static final long IDLE_WORKER_TIMEOUT = 30;
+
+    private final CommandExecutor commandExecutor;
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService stageExecutor;
+    private final AtomicInteger nextJobId = new AtomicInteger(1);
+    private final Map<Integer, Job> jobs = new ConcurrentSkipListMap<>();
+
+    public ExecutionEngine(CommandExecutor commandExecutor) {
+        this(commandExecutor, DEFAULT_WORKERS, DEFAULT_QUEUE_SIZE);
+    }
+
+    public ExecutionEngine(CommandExecutor commandExecutor, int workerCount, int queueSize) {
+        this.commandExecutor = commandExecutor;
+        AtomicInteger threadId = new AtomicInteger(1);
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, IDLE_WORKER_TIMEOUT, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "terminal-job-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers.allowCoreThreadTimeOut(true);
+        AtomicInteger stageId = new AtomicInteger(1);
+        this.stageExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "terminal-stage-" + stageId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Job submit(String commandLine, Pipeline pipeline, TerminalLogger logger, Session session,
+                      boolean background, Job.Listener listener) {
+        return submit(commandLine, () -> pipeline.run(commandExecutor, logger, session, stageExecutor), background, listener);
+    }
+
+    private Job submit(String commandLine, Runnable command, boolean background, Job.Listener listener) {
+        Job job = new Job(nextJobId.getAndIncrement(), commandLine, background);
+        FutureTask<Void> task = new FutureTask<Void>(() -> run(job, command, listener), null) {
+            @Override
+            protected void done() {
+                // a running job finishes when its command returns; one cancelled while queued never runs
+                if (isCancelled() && job.abandon()) {
+                    finish(job, listener);
+                }
+            }
+        };
+        job.bind(task);
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ValidationException("Too many running jobs!");
+        }
+        return job;
+    }
+
+    private void run(Job job, Runnable command, Job.Listener listener) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            command.run();
+        } catch (ValidationException e) {
+            job.failed(e.getMessage());
+        } catch (RuntimeException e) {
+            job.failed("Command execution failed: " + e);
+        } finally {
+            finish(job, listener);
+        }
+    }
+
+    private void finish(Job job, Job.Listener listener) {
+        jobs.remove(job.getId());
+        job.finished();
+        listener.jobFinished(job);
+    }
+
+    public Job getJob(int id) {
+        return jobs.get(id);
+    }
+
+    public List<Job> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        stageExecutor.shutdownNow();
+    }
+}
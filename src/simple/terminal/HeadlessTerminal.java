@@ -0,0 +1,107 @@
+package simple.terminal;
+
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.terminal.AbstractTerminal;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Terminal without a device behind it: output is counted and dropped, input is fed through
+ * {@link #offerInput(KeyStroke)}. Used for benchmarks and non interactive runs.
+ */
+public class HeadlessTerminal extends AbstractTerminal {
+    private final TerminalSize size;
+    private final BlockingQueue<KeyStroke> input = new LinkedBlockingQueue<>();
+    private long charactersWritten = 0;
+
+    public HeadlessTerminal(int columns, int rows) {
+        this.size = new TerminalSize(columns, rows);
+    }
+
+    public void offerInput(KeyStroke keyStroke) {
+        input.add(keyStroke);
+    }
+
+    public long getCharactersWritten() {
+        return charactersWritten;
+    }
+
+    @Override
+    public KeyStroke pollInput() {
+        return input.poll();
+    }
+
+    @Override
+    public KeyStroke readInput() {
+        try {
+            return input.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public void enterPrivateMode() {
+    }
+
+    @Override
+    public void exitPrivateMode() {
+    }
+
+    @Override
+    public void clearScreen() {
+    }
+
+    @Override
+    public void setCursorPosition(int x, int y) {
+    }
+
+    @Override
+    public void setCursorVisible(boolean visible) {
+    }
+
+    @Override
+    public void putCharacter(char c) {
+        charactersWritten++;
+    }
+
+    @Override
+    public void enableSGR(SGR sgr) {
+    }
+
+    @Override
+    public void disableSGR(SGR sgr) {
+    }
+
+    @Override
+    public void resetColorAndSGR() {
+    }
+
+    @Override
+    public void setForegroundColor(TextColor color) {
+    }
+
+    @Override
+    public void setBackgroundColor(TextColor color) {
+    }
+
+    @Override
+    public TerminalSize getTerminalSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] enquireTerminal(int timeout, TimeUnit timeoutUnit) {
+        return new byte[0];
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,108 @@
+package simple.terminal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Trigram index over history entries identified by increasing sequence numbers. Each trigram maps to
+ * the ascending list of entries containing it; a substring query walks the rarest of its trigram lists
+ * from the newest entry backwards and verifies the candidates.
+ */
+class HistoryIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private static final class Postings {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int lastBefore(int limit) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < limit) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+
+        private void prune(int minimum) {
+            int stale = lastBefore(minimum) + 1;
+            if (stale > 0) {
+                System.arraycopy(values, stale, values, 0, size - stale);
+                size -= stale;
+            }
+        }
+    }
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    void add(int sequence, String entry) {
+        for (int i = 0; i + GRAM_LENGTH <= entry.length(); i++) {
+            Long gram = gram(entry, i);
+            Postings list = postings.get(gram);
+            if (list == null) {
+                list = new Postings();
+                postings.put(gram, list);
+            }
+            if (list.size == 0 || list.values[list.size - 1] != sequence) {
+                list.add(sequence);
+            }
+        }
+    }
+
+    int search(String query, int before, int minimum, IntFunction<String> entries) {
+        Postings driver = null;
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            Postings list = postings.get(gram(query, i));
+            if (list == null) {
+                return -1;
+            }
+            if (driver == null || list.size < driver.size) {
+                driver = list;
+            }
+        }
+        if (driver == null) {
+            return -1;
+        }
+
+        for (int i = driver.lastBefore(before); i >= 0; i--) {
+            int sequence = driver.values[i];
+            if (sequence < minimum) {
+                return -1;
+            }
+            if (entries.apply(sequence).contains(query)) {
+                return sequence;
+            }
+        }
+        return -1;
+    }
+
+    void prune(int minimum) {
+        Iterator<Postings> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            list.prune(minimum);
+            if (list.size == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static long gram(String value, int offset) {
+        return ((long) value.charAt(offset) << 32) | ((long) value.charAt(offset + 1) << 16) | value.charAt(offset + 2);
+    }
+}
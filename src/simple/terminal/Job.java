@@ -0,0 +1,109 @@
+package simple.terminal;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+
+public class Job {
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    public interface Listener {
+        void jobFinished(Job job);
+    }
+
+    private final int id;
+    private final String commandLine;
+    private final boolean background;
+    private volatile State state = State.QUEUED;
+    private volatile String error;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private FutureTask<Void> task;
+
+    Job(int id, String commandLine, boolean background) {
+        this.id = id;
+        this.commandLine = commandLine;
+        this.background = background;
+    }
+
+    void bind(FutureTask<Void> task) {
+        this.task = task;
+    }
+
+    /**
+     * Marks a queued job as running. Returns false if it was cancelled first.
+     */
+    synchronized boolean start() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        return true;
+    }
+
+    /**
+     * Marks a job cancelled before it started as cancelled. Returns false if it was already running.
+     */
+    synchronized boolean abandon() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.CANCELLED;
+        return true;
+    }
+
+    void failed(String error) {
+        this.error = error;
+    }
+
+    void finished() {
+        if (task.isCancelled()) {
+            state = State.CANCELLED;
+        } else if (error != null) {
+            state = State.FAILED;
+        } else {
+            state = State.DONE;
+        }
+        finished.countDown();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCommandLine() {
+        return commandLine;
+    }
+
+    public boolean isBackground() {
+        return background;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    public boolean cancel() {
+        return task.cancel(true);
+    }
+
+    /**
+     * Waits until the command stopped running and the job state is final.
+     */
+    public void await() throws InterruptedException {
+        finished.await();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + id + "] " + state + " " + commandLine;
+    }
+}
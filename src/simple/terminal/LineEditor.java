@@ -0,0 +1,214 @@
+package simple.terminal;
+
+import java.util.Arrays;
+
+/**
+ * Gap buffer holding the line being edited. The characters before and after the gap are kept at both ends of a
+ * single array and the gap is moved to the cursor only when text is inserted or deleted, so typing or pasting
+ * at any position costs time proportional to the inserted text, not to the length of the line. The editor
+ * remembers the first position changed since the last {@link #markRendered()}, so the screen can redraw only
+ * the cells after it.
+ */
+public class LineEditor {
+    private static final int INITIAL_CAPACITY = 128;
+
+    private char[] buffer = new char[INITIAL_CAPACITY];
+    private int gapStart = 0;
+    private int gapEnd = INITIAL_CAPACITY;
+    private int cursor = 0;
+    private int changedFrom = 0;
+    private String killed = "";
+
+    public int length() {
+        return buffer.length - (gapEnd - gapStart);
+    }
+
+    public char charAt(int index) {
+        return index < gapStart ? buffer[index] : buffer[index + gapEnd - gapStart];
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    public boolean isEmpty() {
+        return length() == 0;
+    }
+
+    /**
+     * Returns the first position changed since the last render, or {@link Integer#MAX_VALUE} when nothing changed.
+     */
+    public int getChangedFrom() {
+        return changedFrom;
+    }
+
+    public void markRendered() {
+        changedFrom = Integer.MAX_VALUE;
+    }
+
+    public void insert(char c) {
+        moveGap(cursor);
+        ensureGap(1);
+        buffer[gapStart++] = c;
+        changed(cursor++);
+    }
+
+    public void insert(CharSequence text) {
+        moveGap(cursor);
+        ensureGap(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[gapStart++] = text.charAt(i);
+        }
+        changed(cursor);
+        cursor += text.length();
+    }
+
+    public void set(CharSequence text) {
+        gapStart = 0;
+        gapEnd = buffer.length;
+        cursor = 0;
+        insert(text);
+        changed(0);
+    }
+
+    public void clear() {
+        set("");
+    }
+
+    public boolean deleteBackward() {
+        if (cursor == 0) {
+            return false;
+        }
+        delete(cursor - 1, cursor);
+        return true;
+    }
+
+    public boolean deleteForward() {
+        if (cursor == length()) {
+            return false;
+        }
+        delete(cursor, cursor + 1);
+        return true;
+    }
+
+    public void moveLeft() {
+        cursor = Math.max(0, cursor - 1);
+    }
+
+    public void moveRight() {
+        cursor = Math.min(length(), cursor + 1);
+    }
+
+    public void moveHome() {
+        cursor = 0;
+    }
+
+    public void moveEnd() {
+        cursor = length();
+    }
+
+    public void moveWordLeft() {
+        cursor = wordStart(cursor);
+    }
+
+    public void moveWordRight() {
+        int length = length();
+        while (cursor < length && !isWordCharacter(charAt(cursor))) {
+            cursor++;
+        }
+        while (cursor < length && isWordCharacter(charAt(cursor))) {
+            cursor++;
+        }
+    }
+
+    public void killToEnd() {
+        kill(cursor, length());
+    }
+
+    public void killToStart() {
+        kill(0, cursor);
+    }
+
+    public void killWordBackward() {
+        kill(wordStart(cursor), cursor);
+    }
+
+    public void yank() {
+        insert(killed);
+    }
+
+    private int wordStart(int position) {
+        while (position > 0 && !isWordCharacter(charAt(position - 1))) {
+            position--;
+        }
+        while (position > 0 && isWordCharacter(charAt(position - 1))) {
+            position--;
+        }
+        return position;
+    }
+
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+    }
+
+    private void kill(int from, int to) {
+        if (from < to) {
+            killed = substring(from, to);
+            delete(from, to);
+        }
+    }
+
+    private void delete(int from, int to) {
+        moveGap(to);
+        gapStart = from;
+        cursor = from;
+        changed(from);
+    }
+
+    public String substring(int from, int to) {
+        StringBuilder result = new StringBuilder(to - from);
+        int split = Math.min(Math.max(from, gapStart), to);
+        result.append(buffer, from, split - from);
+        int gap = gapEnd - gapStart;
+        if (split < to) {
+            result.append(buffer, split + gap, to - split);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return substring(0, length());
+    }
+
+    private void changed(int position) {
+        changedFrom = Math.min(changedFrom, position);
+    }
+
+    private void moveGap(int position) {
+        if (position < gapStart) {
+            int count = gapStart - position;
+            System.arraycopy(buffer, position, buffer, gapEnd - count, count);
+            gapStart -= count;
+            gapEnd -= count;
+        } else if (position > gapStart) {
+            int count = position - gapStart;
+            System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+
+    private void ensureGap(int size) {
+        if (gapEnd - gapStart >= size) {
+            return;
+        }
+        int length = length();
+        int capacity = Math.max(buffer.length * 2, length + size + INITIAL_CAPACITY);
+        char[] expanded = Arrays.copyOf(buffer, capacity);
+        int tail = buffer.length - gapEnd;
+        System.arraycopy(buffer, gapEnd, expanded, capacity - tail, tail);
+        buffer = expanded;
+        gapEnd = capacity - tail;
+    }
+}
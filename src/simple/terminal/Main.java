@@ -1,54 +1,332 @@
 package simple.terminal;
 
 import simple.terminal.command.CommandManager;
+import simple.terminal.command.CommandMetrics;
+import simple.terminal.command.ParameterSchema;
+import simple.terminal.command.ParameterType;
+import simple.terminal.command.PluginLoader;
+import simple.terminal.completion.CompletionEngine;
+import simple.terminal.filesystem.DirectoryCache;
+import simple.terminal.filesystem.DirectoryListing;
+import simple.terminal.filesystem.FileSearch;
+import simple.terminal.filesystem.LineMatcher;
+import simple.terminal.logging.RollingFileSink;
+import simple.terminal.recording.SessionReplay;
 import simple.terminal.command.TerminalCommand;
+import simple.terminal.validation.ValidationException;
 
-import java.io.File;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.PatternSyntaxException;
 
 public class Main {
     public static final String CMD_PWD = "pwd";
     public static final String CMD_LS = "ls";
     public static final String CMD_CD = "cd";
     public static final String CMD_EXIT = "exit";
+    public static final String CMD_JOBS = "jobs";
+    public static final String CMD_KILL = "kill";
+    public static final String CMD_CACHE = "cache";
+    public static final String CMD_GREP = "grep";
+    public static final String CMD_FIND = "find";
+    public static final String CMD_HEAD = "head";
+    public static final String CMD_STATS = "stats";
 
-    private static File currentRoot = new File(".");
+    private static final String HISTORY_FILE = ".simple_terminal_history";
+    private static final long LOG_FILE_SIZE = 10 << 20;
+    private static final int LOG_FILE_COUNT = 5;
+
+    private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_PARALLELISM = 256;
+
+    private static DirectoryCache directoryCache;
+
+    private static Path directory(Session session) {
+        return session == null ? Paths.get("").toAbsolutePath() : session.getDirectory();
+    }
+
+    private static Session session(TerminalCommand.Params params) {
+        if (params.getSession() == null) {
+            throw new ValidationException("The command needs a terminal session!");
+        }
+        return params.getSession();
+    }
+
+    private static BasicTerminal terminal(TerminalCommand.Params params) {
+        BasicTerminal terminal = session(params).getTerminal();
+        if (terminal == null) {
+            throw new ValidationException("The command needs an interactive terminal!");
+        }
+        return terminal;
+    }
 
     private static boolean listFolder(TerminalCommand.Params params) {
         TerminalLogger terminalLogger = params.getLogger();
-        File[] list = currentRoot.listFiles();
-        if (list != null) {
-            for (File file : list) {
-                terminalLogger.log(CMD_LS, file.getName());
-            }
+        DirectoryListing listing = new DirectoryListing(directoryCache);
+        listing.setAttributes(params.isSet("-l"));
+        listing.setSorted(params.isSet("-s"));
+        listing.setLimit(params.get("-n", Long.MAX_VALUE));
+        Path folder = params.get("folder", directory(params.getSession()));
+        try {
+            return listing.list(folder, CMD_LS, terminalLogger);
+        } catch (IOException e) {
+            terminalLogger.log(CMD_LS, "Cannot list " + folder + ": " + e.getMessage());
+            return false;
         }
-        return true;
     }
 
     private static boolean pwd(TerminalCommand.Params params) {
         TerminalLogger terminalLogger = params.getLogger();
-        terminalLogger.log(CMD_PWD, currentRoot.getAbsolutePath());
+        terminalLogger.log(CMD_PWD, directory(params.getSession()).toString());
         return true;
     }
 
     private static boolean changeFolder(TerminalCommand.Params params) {
-        File newFolder = new File(currentRoot, params.getValues()[0]);
-        if (newFolder.isDirectory() && newFolder.canRead()) {
-            currentRoot = newFolder;
+        Session session = session(params);
+        Path newFolder = DirectoryCache.key(params.get("folder"));
+        if (!directoryCache.isReadableDirectory(newFolder)) {
+            throw new ValidationException("Not a readable folder: " + newFolder);
+        }
+        session.setDirectory(newFolder);
+        return true;
+    }
+
+    private static List<String> completeFolder(Session session, String[] arguments, String partialArgument, int limit) {
+        int separator = partialArgument.lastIndexOf('/');
+        String parent = partialArgument.substring(0, separator + 1);
+        String prefix = partialArgument.substring(separator + 1);
+
+        Path folder = directory(session).resolve(parent);
+        TreeSet<String> folders = new TreeSet<>();
+        try {
+            List<DirectoryCache.FileEntry> entries = directoryCache.getListing(folder);
+            if (entries != null) {
+                for (DirectoryCache.FileEntry entry : entries) {
+                    if (entry.isDirectory() && entry.getName().startsWith(prefix)) {
+                        addCompletion(folders, parent + entry.getName() + "/", limit);
+                    }
+                }
+            } else {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                    for (Path path : stream) {
+                        String name = path.getFileName().toString();
+                        if (name.startsWith(prefix) && Files.isDirectory(path)) {
+                            addCompletion(folders, parent + name + "/", limit);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(folders);
+    }
+
+    private static void addCompletion(TreeSet<String> completions, String completion, int limit) {
+        completions.add(completion);
+        if (completions.size() > limit) {
+            completions.pollLast();
+        }
+    }
+
+    private static boolean find(TerminalCommand.Params params) {
+        Path base = directory(params.getSession());
+        List<Path> roots = params.getAll("path");
+        FileSearch search = new FileSearch(params.get("-j", DEFAULT_PARALLELISM));
+        String name = params.get("-name");
+        if (name != null) {
+            search.setName(name);
+        }
+        String type = params.get("-type");
+        search.setType(type == null ? 0 : type.charAt(0));
+        return search.find(roots.isEmpty() ? Collections.singletonList(base) : roots, base, CMD_FIND, params.getLogger());
+    }
+
+    /**
+     * Filters the input of the command when it has one and no path is given, otherwise searches the files under
+     * the given paths, or the working directory.
+     */
+    private static boolean grep(TerminalCommand.Params params) {
+        Path base = directory(params.getSession());
+        List<Path> roots = params.getAll("path");
+        LineMatcher matcher;
+        try {
+            matcher = new LineMatcher(params.get("pattern"), params.isSet("-E"), params.isSet("-i"));
+        } catch (PatternSyntaxException e) {
+            throw new ValidationException("Invalid pattern: " + e.getDescription());
+        }
+        if (roots.isEmpty() && params.hasInput()) {
+            for (String line = params.getInput().read(); line != null; line = params.getInput().read()) {
+                if (matcher.matches(line)) {
+                    params.getLogger().log(CMD_GREP, line);
+                }
+            }
             return true;
+        }
+        return new FileSearch(params.get("-j", DEFAULT_PARALLELISM)).grep(roots.isEmpty() ? Collections.singletonList(base) : roots,
+                matcher, base, CMD_GREP, params.getLogger());
+    }
+
+    private static boolean head(TerminalCommand.Params params) {
+        if (!params.hasInput()) {
+            throw new ValidationException("The command needs piped input!");
+        }
+        long count = params.get("count");
+        for (long i = 0; i < count; i++) {
+            String line = params.getInput().read();
+            if (line == null) {
+                break;
+            }
+            params.getLogger().log(CMD_HEAD, line);
+        }
+        return true;
+    }
+
+    private static boolean commandStatistics(CommandMetrics metrics, TerminalCommand.Params params) {
+        String action = params.get("action");
+        Path file = params.get("file");
+        if (file != null && !"export".equals(action)) {
+            throw new ValidationException("Only export takes a file, usage: " + CMD_STATS + " export <file>");
+        }
+        if (action == null) {
+            params.getLogger().log(CMD_STATS, metrics.report());
+            if (!metrics.isEnabled()) {
+                params.getLogger().log(CMD_STATS, "Statistics are off, turn them on with: " + CMD_STATS + " on");
+            }
+        } else if (action.equals("on") || action.equals("off")) {
+            metrics.setEnabled(action.equals("on"));
+        } else if (action.equals("reset")) {
+            metrics.reset();
+        } else if (file == null) {
+            throw new ValidationException("Missing the file to export to, usage: " + CMD_STATS + " export <file>");
         } else {
-            return false;
+            try {
+                metrics.export(file);
+                params.getLogger().log(CMD_STATS, "Exported to " + file);
+            } catch (IOException e) {
+                params.getLogger().log(CMD_STATS, "Cannot export to " + file + ": " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean cacheStatistics(TerminalCommand.Params params) {
+        params.getLogger().log(CMD_CACHE, String.format("entries: %d, hits: %d, misses: %d",
+                directoryCache.size(), directoryCache.getHits(), directoryCache.getMisses()));
+        return true;
+    }
+
+    private static int runBatch(CommandManager commandManager, String[] args) throws IOException, InterruptedException {
+        int parallelism = 1;
+        List<Path> scripts = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--parallel")) {
+                parallelism = Runtime.getRuntime().availableProcessors();
+            } else {
+                scripts.add(Paths.get(args[i]));
+            }
+        }
+
+        BatchRunner runner = new BatchRunner(commandManager, System.out, System.err);
+        long start = System.nanoTime();
+        try {
+            if (scripts.isEmpty()) {
+                runner.run("<stdin>", new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset())));
+            } else {
+                runner.run(scripts, parallelism);
+            }
+        } finally {
+            runner.flush();
+            runner.shutdown();
         }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.println(String.format("%d commands, %d failed, in %.3f s (%.0f commands/s)",
+                runner.getCommands(), runner.getFailures(), seconds, runner.getCommands() / seconds));
+        return runner.getFailures() == 0 ? 0 : 1;
     }
 
-    public static void main(String[] args) throws IOException {
+    private static CommandManager createCommandManager() {
+        ParameterType<Path> folder = ParameterType.PATH.completedBy(Main::completeFolder);
+        ParameterType<Integer> parallelism = ParameterType.integer(1, MAX_PARALLELISM);
         CommandManager commandManager = new CommandManager();
-        BasicTerminal terminal = new BasicTerminal(commandManager, commandManager);
+        commandManager.addCommand(new TerminalCommand(CMD_CD, Main::changeFolder,
+                new ParameterSchema().required("folder", folder)));
+        commandManager.addCommand(new TerminalCommand(CMD_LS, Main::listFolder,
+                new ParameterSchema().flag("-l").flag("-s").option("-n", ParameterType.longInteger(0, Long.MAX_VALUE))
+                        .optional("folder", folder)));
+        commandManager.addCommand(new TerminalCommand(CMD_PWD, Main::pwd, new ParameterSchema()));
+        commandManager.addCommand(new TerminalCommand(CMD_CACHE, Main::cacheStatistics, new ParameterSchema()));
+        commandManager.addCommand(new TerminalCommand(CMD_GREP, Main::grep,
+                new ParameterSchema().flag("-i").flag("-E").option("-j", parallelism)
+                        .required("pattern", ParameterType.STRING).varargs("path", folder)));
+        commandManager.addCommand(new TerminalCommand(CMD_FIND, Main::find,
+                new ParameterSchema().option("-name", ParameterType.STRING).option("-type", ParameterType.choice("f", "d"))
+                        .option("-j", parallelism).varargs("path", folder)));
+        commandManager.addCommand(new TerminalCommand(CMD_HEAD, Main::head,
+                new ParameterSchema().required("count", ParameterType.longInteger(0, Long.MAX_VALUE))));
+        CommandMetrics metrics = commandManager.getMetrics();
+        commandManager.addCommand(new TerminalCommand(CMD_STATS, params -> commandStatistics(metrics, params),
+                new ParameterSchema().optional("action", ParameterType.choice("on", "off", "reset", "export"))
+                        .optional("file", ParameterType.PATH)));
+        return commandManager;
+    }
+
+    private static void addSessionCommands(CommandManager commandManager) {
+        commandManager.addCommand(new TerminalCommand(CMD_EXIT, params -> terminal(params).exitTerminal(params),
+                new ParameterSchema()));
+        commandManager.addCommand(new TerminalCommand(CMD_JOBS, params -> terminal(params).listJobs(params),
+                new ParameterSchema()));
+        commandManager.addCommand(new TerminalCommand(CMD_KILL, params -> terminal(params).killJob(params),
+                new ParameterSchema().required("job", ParameterType.integer(1, Integer.MAX_VALUE))));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        directoryCache = new DirectoryCache();
+        CommandManager commandManager = createCommandManager();
+        new PluginLoader(Main.class.getClassLoader()).load(commandManager,
+                (source, message) -> System.err.println(source + ": " + message));
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(commandManager, args));
+        }
+        addSessionCommands(commandManager);
+        if (args.length >= 2 && args[0].equals("--server")) {
+            InetAddress bindAddress = args.length == 4 && args[2].equals("--bind")
+                    ? InetAddress.getByName(args[3]) : InetAddress.getLoopbackAddress();
+            try (TerminalServer server = new TerminalServer(bindAddress, Integer.parseInt(args[1]),
+                    () -> new CompletionEngine(commandManager), commandManager, TerminalServer.DEFAULT_EVENT_LOOP_THREADS)) {
+                server.serve();
+            }
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("--replay")) {
+            boolean fast = args.length == 3 && args[2].equals("--fast");
+            SessionReplay replay = new SessionReplay(new CompletionEngine(commandManager), commandManager);
+            System.out.println(replay.replay(Paths.get(args[1]), !fast));
+            return;
+        }
 
-        commandManager.addCommand(new TerminalCommand(CMD_CD, Main::changeFolder, 1));
-        commandManager.addCommand(new TerminalCommand(CMD_LS, Main::listFolder, 0));
-        commandManager.addCommand(new TerminalCommand(CMD_PWD, Main::pwd, 0));
-        commandManager.addCommand(new TerminalCommand(CMD_EXIT, terminal::exitTerminal, 0));
+        BasicTerminal terminal = new BasicTerminal(new CompletionEngine(commandManager), commandManager);
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--log")) {
+                terminal.addOutputSink(new RollingFileSink(Paths.get(args[i + 1]), LOG_FILE_SIZE, LOG_FILE_COUNT));
+            } else if (args[i].equals("--record")) {
+                terminal.record(Paths.get(args[i + 1]));
+            }
+        }
+        terminal.setHistory(new CommandHistory(CommandHistory.DEFAULT_CAPACITY,
+                Paths.get(System.getProperty("user.home"), HISTORY_FILE)));
 
         terminal.process();
     }
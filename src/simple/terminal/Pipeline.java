@@ -0,0 +1,115 @@
+package simple.terminal;
+
+import simple.terminal.command.BrokenPipeException;
+import simple.terminal.command.CommandLineTokenizer;
+import simple.terminal.command.Pipe;
+import simple.terminal.command.TerminalCommand;
+import simple.terminal.validation.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Chain of commands connected by bounded {@link Pipe}s. The last stage runs on the calling thread and writes to
+ * the terminal, the other stages run concurrently on the stage executor. A stage that finishes closes both of
+ * its pipes, so a downstream stage that stops reading early makes every upstream stage stop as well.
+ */
+public class Pipeline {
+    private final List<String> commandNames = new ArrayList<>();
+    private final List<String[]> values = new ArrayList<>();
+    private int capacity = Pipe.DEFAULT_CAPACITY;
+
+    /**
+     * Builds a pipeline from the tokens {@code [from, to)}, split on the {@code |} operators.
+     */
+    public static Pipeline parse(CommandLineTokenizer tokenizer, int from, int to) throws ValidationException {
+        Pipeline pipeline = new Pipeline();
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || tokenizer.isOperator(i, '|')) {
+                if (i == start) {
+                    throw new ValidationException("Missing command in the pipeline!");
+                }
+                pipeline.add(tokenizer.get(start), i - start > 1 ? tokenizer.toArray(start + 1, i) : null);
+                start = i + 1;
+            }
+        }
+        return pipeline;
+    }
+
+    public Pipeline add(String commandName, String[] values) {
+        this.commandNames.add(commandName);
+        this.values.add(values);
+        return this;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int size() {
+        return commandNames.size();
+    }
+
+    public String getCommandName(int stage) {
+        return commandNames.get(stage);
+    }
+
+    void run(CommandExecutor commandExecutor, TerminalLogger logger, Session session, ExecutorService stageExecutor) {
+        int last = commandNames.size() - 1;
+        Pipe[] pipes = new Pipe[last];
+        for (int i = 0; i < last; i++) {
+            pipes[i] = new Pipe(capacity);
+        }
+
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Future<?>> stages = new ArrayList<>(last);
+        try {
+            for (int i = 0; i < last; i++) {
+                int stage = i;
+                stages.add(stageExecutor.submit(() -> runStage(commandExecutor, stage, pipes[stage], session, pipes, failure)));
+            }
+            runStage(commandExecutor, last, logger, session, pipes, failure);
+            for (Future<?> stage : stages) {
+                stage.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, new IllegalStateException(e.getCause()));
+        } finally {
+            for (Future<?> stage : stages) {
+                stage.cancel(true);
+            }
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private void runStage(CommandExecutor commandExecutor, int stage, TerminalLogger output, Session session,
+                          Pipe[] pipes, AtomicReference<RuntimeException> failure) {
+        Pipe input = stage > 0 ? pipes[stage - 1] : null;
+        try {
+            commandExecutor.execute(commandNames.get(stage), new TerminalCommand.Params(values.get(stage), output, input, session));
+        } catch (BrokenPipeException e) {
+            // the downstream stage finished, stopping here is expected
+        } catch (ValidationException e) {
+            failure.compareAndSet(null, pipes.length == 0 ? e : new ValidationException(commandNames.get(stage) + ": " + e.getMessage()));
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            if (stage < pipes.length) {
+                pipes[stage].close();
+            }
+            if (input != null) {
+                input.closeInput();
+            }
+        }
+    }
+}
@@ -4,4 +4,11 @@ import java.util.List;
 
 public interface PredictionGenerator {
     List<String> generate(String currentBuffer);
+
+    default List<String> generate(String currentBuffer, Session session) {
+        return generate(currentBuffer);
+    }
+
+    default void accepted(String commandLine) {
+    }
 }
@@ -0,0 +1,108 @@
+package simple.terminal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects output lines and screen invalidations and runs the renderer at most once per frame.
+ * When nothing was rendered for a full frame interval, a change is rendered right away.
+ */
+public class RenderScheduler {
+    public static final int DEFAULT_FRAME_RATE = 60;
+
+    private final Runnable renderer;
+    private final long frameInterval;
+    private final ScheduledExecutorService timer;
+    private final boolean sharedTimer;
+
+    private final Object lock = new Object();
+    private List<String> pendingLines = new ArrayList<>();
+    private boolean dirty = false;
+    private boolean scheduled = false;
+    private long lastFrame = 0;
+    private boolean stopped = false;
+
+    public RenderScheduler(Runnable renderer) {
+        this(renderer, DEFAULT_FRAME_RATE);
+    }
+
+    public RenderScheduler(Runnable renderer, int frameRate) {
+        this(renderer, frameRate, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "terminal-render");
+            thread.setDaemon(true);
+            return thread;
+        }), false);
+    }
+
+    /**
+     * Renders on {@code timer}, which may be shared by many terminals and is left running by {@link #shutdown()}.
+     */
+    public RenderScheduler(Runnable renderer, int frameRate, ScheduledExecutorService timer) {
+        this(renderer, frameRate, timer, true);
+    }
+
+    private RenderScheduler(Runnable renderer, int frameRate, ScheduledExecutorService timer, boolean sharedTimer) {
+        this.renderer = renderer;
+        this.frameInterval = TimeUnit.SECONDS.toNanos(1) / frameRate;
+        this.timer = timer;
+        this.sharedTimer = sharedTimer;
+    }
+
+    public void submit(String line) {
+        synchronized (lock) {
+            pendingLines.add(line);
+            schedule();
+        }
+    }
+
+    public void invalidate() {
+        synchronized (lock) {
+            schedule();
+        }
+    }
+
+    /**
+     * Called by the renderer, returns the lines accumulated since the previous frame,
+     * or null when nothing changed.
+     */
+    public List<String> drain() {
+        synchronized (lock) {
+            if (!dirty) {
+                return null;
+            }
+            List<String> lines = pendingLines;
+            pendingLines = new ArrayList<>();
+            dirty = false;
+            lastFrame = System.nanoTime();
+            return lines;
+        }
+    }
+
+    public void shutdown() {
+        synchronized (lock) {
+            stopped = true;
+        }
+        if (!sharedTimer) {
+            timer.shutdownNow();
+        }
+    }
+
+    private void schedule() {
+        dirty = true;
+        if (!scheduled && !stopped && !timer.isShutdown()) {
+            scheduled = true;
+            long delay = Math.max(0, lastFrame + frameInterval - System.nanoTime());
+            timer.schedule(this::flush, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        synchronized (lock) {
+            scheduled = false;
+        }
+        renderer.run();
+    }
+}
@@ -0,0 +1,80 @@
+package simple.terminal;
+
+/**
+ * Keeps the most recent output rows in a single circular char slab. Each row costs its characters
+ * plus two ints of bookkeeping; the oldest rows are evicted when either the row or the character
+ * limit is reached.
+ */
+public class ScrollbackBuffer {
+    private final char[] data;
+    private final int[] starts;
+    private final int[] lengths;
+    private int first = 0;
+    private int count = 0;
+    private int writePosition = 0;
+    private int usedChars = 0;
+
+    public ScrollbackBuffer(int maxLines, int maxChars) {
+        if (maxLines <= 0 || maxChars <= 0) {
+            throw new IllegalArgumentException("The scrollback limits need to be positive!");
+        }
+        this.data = new char[maxChars];
+        this.starts = new int[maxLines];
+        this.lengths = new int[maxLines];
+    }
+
+    public void add(String line) {
+        int length = Math.min(line.length(), data.length);
+        while (count > 0 && (count == starts.length || usedChars + length > data.length)) {
+            usedChars -= lengths[first];
+            first = (first + 1) % starts.length;
+            count--;
+        }
+
+        int slot = (first + count) % starts.length;
+        starts[slot] = writePosition;
+        lengths[slot] = length;
+        int head = Math.min(length, data.length - writePosition);
+        line.getChars(0, head, data, writePosition);
+        line.getChars(head, length, data, 0);
+        writePosition = (writePosition + length) % data.length;
+        usedChars += length;
+        count++;
+    }
+
+    public String get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        int slot = (first + index) % starts.length;
+        int start = starts[slot];
+        int length = lengths[slot];
+        if (start + length <= data.length) {
+            return new String(data, start, length);
+        }
+        char[] chars = new char[length];
+        int head = data.length - start;
+        System.arraycopy(data, start, chars, 0, head);
+        System.arraycopy(data, 0, chars, head, length - head);
+        return new String(chars);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getMaxLines() {
+        return starts.length;
+    }
+
+    public int getMaxChars() {
+        return data.length;
+    }
+
+    public void clear() {
+        first = 0;
+        count = 0;
+        writePosition = 0;
+        usedChars = 0;
+    }
+}
@@ -0,0 +1,68 @@
+package simple.terminal;
+
+import java.nio.file.Path;
+
+/**
+ * State of one terminal session: its working directory, command history and the terminal it runs in.
+ * Commands reach it through {@link simple.terminal.command.TerminalCommand.Params#getSession()}, so any number
+ * of sessions can share the same commands.
+ */
+public class Session {
+    private final String name;
+    private volatile Path directory;
+    private volatile CommandHistory history;
+    private volatile BasicTerminal terminal;
+
+    public Session(String name, Path directory) {
+        this(name, directory, new CommandHistory(CommandHistory.DEFAULT_CAPACITY));
+    }
+
+    public Session(String name, Path directory, CommandHistory history) {
+        this.name = name;
+        this.directory = directory.toAbsolutePath().normalize();
+        this.history = history;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Resolves {@code path} against the working directory; absolute paths are returned as they are.
+     */
+    public Path resolve(String path) {
+        return directory.resolve(path).normalize();
+    }
+
+    public CommandHistory getHistory() {
+        return history;
+    }
+
+    void setHistory(CommandHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Returns the interactive terminal of this session, or null for sessions running scripts.
+     */
+    public BasicTerminal getTerminal() {
+        return terminal;
+    }
+
+    void setTerminal(BasicTerminal terminal) {
+        this.terminal = terminal;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
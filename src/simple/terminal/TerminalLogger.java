@@ -29,6 +29,14 @@
 
 package simple.terminal;
 
+import java.util.List;
+
 public interface TerminalLogger {
     void log(String source, String message);
+
+    default void log(String source, List<String> messages) {
+        for (String message : messages) {
+            log(source, message);
+        }
+    }
 }
@@ -0,0 +1,244 @@
+package simple.terminal;
+
+import com.googlecode.lanterna.terminal.ansi.TelnetTerminal;
+import com.googlecode.lanterna.terminal.ansi.TelnetTerminalServer;
+
+import javax.net.ServerSocketFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serves one {@link BasicTerminal} per telnet connection, all sharing the same commands; each session gets its
+ * own {@link PredictionGenerator}, so completions neither wait on nor rank by other sessions. Sessions have no
+ * input thread of their own: a small event loop polls every session for input, rescheduling a session right
+ * away while it has input and after {@link #INPUT_POLL_INTERVAL} otherwise, and renders their frames.
+ * Polling never sees a client going away, so idle connections are probed with a telnet NOP instead. The
+ * telnet negotiation and terminal size query block, so new connections are set up on a separate pool.
+ */
+public class TerminalServer implements Closeable {
+    public static final int DEFAULT_EVENT_LOOP_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final long INPUT_POLL_INTERVAL = 10;
+    private static final long IDLE_PROBE_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+    private static final byte[] TELNET_NOP = {(byte) 0xff, (byte) 0xf1};
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private static final class Connection {
+        private final BasicTerminal terminal;
+        private final TelnetTerminal telnetTerminal;
+        private final Socket socket;
+        private long lastActivity = System.nanoTime();
+
+        private Connection(BasicTerminal terminal, TelnetTerminal telnetTerminal, Socket socket) {
+            this.terminal = terminal;
+            this.telnetTerminal = telnetTerminal;
+            this.socket = socket;
+        }
+    }
+
+    /**
+     * Remembers the socket of the last accepted connection, which {@link TelnetTerminal} keeps to itself.
+     */
+    private static final class ConnectionSocketFactory extends ServerSocketFactory {
+        private final InetAddress bindAddress;
+        private volatile Socket accepted;
+
+        private ConnectionSocketFactory(InetAddress bindAddress) {
+            this.bindAddress = bindAddress;
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return createServerSocket(port, ACCEPT_BACKLOG, bindAddress);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return createServerSocket(port, backlog, bindAddress);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            return new ServerSocket(port, backlog, address) {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    accepted = socket;
+                    return socket;
+                }
+            };
+        }
+    }
+
+    private final ConnectionSocketFactory socketFactory;
+    private final TelnetTerminalServer server;
+    private final Supplier<PredictionGenerator> predictionGenerators;
+    private final CommandExecutor commandExecutor;
+    private final ScheduledExecutorService eventLoop;
+    private final ExecutorService setup;
+    private final Path directory = Paths.get("").toAbsolutePath();
+    private final Map<BasicTerminal, Connection> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSessionId = new AtomicInteger(1);
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a server listening on the loopback interface only: sessions are not authenticated and can read
+     * and write any file the process can.
+     */
+    public TerminalServer(int port, Supplier<PredictionGenerator> predictionGenerators, CommandExecutor commandExecutor) throws IOException {
+        this(InetAddress.getLoopbackAddress(), port, predictionGenerators, commandExecutor, DEFAULT_EVENT_LOOP_THREADS);
+    }
+
+    public TerminalServer(InetAddress bindAddress, int port, Supplier<PredictionGenerator> predictionGenerators,
+                          CommandExecutor commandExecutor, int eventLoopThreads) throws IOException {
+        this.socketFactory = new ConnectionSocketFactory(bindAddress);
+        this.server = new TelnetTerminalServer(socketFactory, port);
+        this.predictionGenerators = predictionGenerators;
+        this.commandExecutor = commandExecutor;
+        AtomicInteger threadId = new AtomicInteger(1);
+        this.eventLoop = Executors.newScheduledThreadPool(eventLoopThreads, runnable -> {
+            Thread thread = new Thread(runnable, "terminal-session-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger setupId = new AtomicInteger(1);
+        this.setup = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "terminal-setup-" + setupId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPort() {
+        return server.getServerSocket().getLocalPort();
+    }
+
+    public int getSessionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    public void serve() throws IOException {
+        while (!closed) {
+            TelnetTerminal telnetTerminal;
+            try {
+                telnetTerminal = server.acceptConnection();
+            } catch (IOException e) {
+                if (closed || server.getServerSocket().isClosed()) {
+                    return;
+                }
+                close(socketFactory.accepted);
+                continue;
+            }
+            Socket socket = socketFactory.accepted;
+            setup.execute(() -> open(telnetTerminal, socket));
+        }
+    }
+
+    private static void close(Socket socket) {
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            // the client is gone already
+        }
+    }
+
+    private void open(TelnetTerminal telnetTerminal, Socket socket) {
+        Session session = new Session("session-" + nextSessionId.getAndIncrement(), directory);
+        Connection connection;
+        try {
+            BasicTerminal terminal = new BasicTerminal(predictionGenerators.get(), commandExecutor, telnetTerminal, session, eventLoop);
+            connection = new Connection(terminal, telnetTerminal, socket);
+        } catch (IOException | RuntimeException e) {
+            close(socket);
+            return;
+        }
+        connections.put(connection.terminal, connection);
+        try {
+            connection.terminal.start();
+            eventLoop.execute(() -> poll(connection));
+        } catch (IOException | RuntimeException e) {
+            end(connection);
+        }
+    }
+
+    private void poll(Connection connection) {
+        BasicTerminal terminal = connection.terminal;
+        try {
+            boolean pending = terminal.isRunning() && terminal.poll();
+            long now = System.nanoTime();
+            if (pending) {
+                connection.lastActivity = now;
+            } else if (now - connection.lastActivity > IDLE_PROBE_INTERVAL) {
+                probe(connection);
+                connection.lastActivity = now;
+            }
+            if (terminal.isRunning() && !closed) {
+                if (pending) {
+                    eventLoop.execute(() -> poll(connection));
+                } else {
+                    eventLoop.schedule(() -> poll(connection), INPUT_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            // the connection is gone, the session ends with it
+        }
+        end(connection);
+    }
+
+    /**
+     * Writes a telnet NOP, which fails once the client closed the connection. The terminal lock keeps it from
+     * being interleaved with a frame.
+     */
+    private void probe(Connection connection) throws IOException {
+        synchronized (connection.terminal) {
+            OutputStream output = connection.socket.getOutputStream();
+            output.write(TELNET_NOP);
+            output.flush();
+        }
+    }
+
+    private void end(Connection connection) {
+        if (connections.remove(connection.terminal) == null) {
+            return;
+        }
+        try {
+            connection.terminal.stop();
+        } catch (IOException | RuntimeException e) {
+            // the client may already be disconnected
+        }
+        try {
+            connection.telnetTerminal.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        setup.shutdownNow();
+        connections.values().forEach(this::end);
+        eventLoop.shutdownNow();
+    }
+}
@@ -0,0 +1,113 @@
+package simple.terminal;
+
+import com.googlecode.lanterna.CJKUtils;
+import com.googlecode.lanterna.graphics.TextGraphics;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Lays out output text in terminal columns. Widths follow the screen: CJK characters take two columns, each half
+ * of a surrogate pair takes one (so an emoji takes two), tabs align to the next multiple of {@link #TAB_SIZE}
+ * and other control characters are shown as a blank. The width of every BMP character is computed once and
+ * kept in a table.
+ */
+public final class TextLayout {
+    public static final int TAB_SIZE = 4;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte[] WIDTHS = new byte[Character.MAX_VALUE + 1];
+
+    private TextLayout() {
+    }
+
+    /**
+     * Returns the number of columns {@code c} takes on screen, or 0 for a tab, whose width depends on the column.
+     */
+    public static int width(char c) {
+        byte width = WIDTHS[c];
+        if (width == UNKNOWN) {
+            width = (byte) (c == '\t' ? 1 : CJKUtils.isCharCJK(c) ? 3 : 2);
+            WIDTHS[c] = width;
+        }
+        return width - 1;
+    }
+
+    private static int advance(int column, char c) {
+        int width = width(c);
+        return width == 0 ? (column / TAB_SIZE + 1) * TAB_SIZE : column + width;
+    }
+
+    /**
+     * Splits {@code text} into lines of at most {@code columns} columns, also breaking it at every {@code '\n'},
+     * and passes the last {@code maxLines} of them to {@code lines}; the earlier ones are never copied. Surrogate
+     * pairs are kept on the same line. Returns the number of lines the text takes in total.
+     */
+    public static int wrap(String text, int columns, int maxLines, Consumer<String> lines) {
+        int[] ends = new int[16];
+        int count = 0;
+        int column = 0;
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                ends = append(ends, count++, i++);
+                column = 0;
+                continue;
+            }
+            boolean pair = Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1));
+            int next = pair ? column + 2 : advance(column, c);
+            if (next > columns && column > 0) {
+                ends = append(ends, count++, i);
+                next = pair ? 2 : advance(0, c);
+            }
+            column = next;
+            i += pair ? 2 : 1;
+        }
+        if (column > 0) {
+            ends = append(ends, count++, length);
+        }
+
+        int first = Math.max(0, count - maxLines);
+        for (int line = first; line < count; line++) {
+            int start = line == 0 ? 0 : ends[line - 1] + (text.charAt(ends[line - 1]) == '\n' ? 1 : 0);
+            int end = ends[line];
+            if (end > start && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+            lines.accept(text.substring(start, end));
+        }
+        return count;
+    }
+
+    private static int[] append(int[] values, int index, int value) {
+        if (index == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[index] = value;
+        return values;
+    }
+
+    /**
+     * Draws {@code text} from {@code column} on {@code row}, cell by cell, stopping at {@code maxColumn}.
+     */
+    public static void draw(TextGraphics graphics, int column, int row, CharSequence text, int maxColumn) {
+        int position = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = advance(position, c);
+            boolean pair = Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1));
+            if (column + next + (pair ? 1 : 0) > maxColumn) {
+                return;
+            }
+            if (width(c) == 0 || Character.isISOControl(c)) {
+                for (int blank = position; blank < next; blank++) {
+                    graphics.setCharacter(column + blank, row, ' ');
+                }
+            } else {
+                graphics.setCharacter(column + position, row, c);
+            }
+            position = next;
+        }
+    }
+}
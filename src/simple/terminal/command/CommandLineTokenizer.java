@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import simple.terminal.validation.ValidationException;
+
+import java.util.Arrays;
+
+/**
+ * Single pass command line tokenizer. Tokens are separated by whitespace, can be quoted with single or
+ * double quotes and can contain backslash escapes. An unquoted {@code &} or {@code |} always forms a token
+ * of its own. The token storage is reused between calls, so tokenizing allocates only when a line is longer
+ * than any line seen before.
+ */
+public class CommandLineTokenizer {
+    private char[] chars = new char[128];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] plain = new boolean[16];
+    private int length = 0;
+    private int count = 0;
+
+    public int tokenize(CharSequence input) throws ValidationException {
+        length = 0;
+        count = 0;
+        int position = 0;
+        int size = input.length();
+        while (position < size) {
+            char c = input.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (isOperator(c)) {
+                startToken();
+                append(c);
+                endToken(true);
+                position++;
+            } else {
+                position = readWord(input, position, size);
+            }
+        }
+        return count;
+    }
+
+    private int readWord(CharSequence input, int position, int size) throws ValidationException {
+        boolean unquoted = true;
+        startToken();
+        while (position < size) {
+            char c = input.charAt(position);
+            if (Character.isWhitespace(c) || isOperator(c)) {
+                break;
+            } else if (c == '\\') {
+                unquoted = false;
+                if (position + 1 < size) {
+                    append(input.charAt(position + 1));
+                }
+                position += 2;
+            } else if (c == '\'' || c == '"') {
+                unquoted = false;
+                position++;
+                while (position < size && input.charAt(position) != c) {
+                    char value = input.charAt(position);
+                    if (c == '"' && value == '\\' && position + 1 < size) {
+                        char next = input.charAt(position + 1);
+                        if (next == '"' || next == '\\') {
+                            value = next;
+                            position++;
+                        }
+                    }
+                    append(value);
+                    position++;
+                }
+                if (position >= size) {
+                    throw new ValidationException("Unterminated quote at the end of the command!");
+                }
+                position++;
+            } else {
+                append(c);
+                position++;
+            }
+        }
+        endToken(unquoted);
+        return position;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public String get(int index) {
+        checkIndex(index);
+        return new String(chars, starts[index], ends[index] - starts[index]);
+    }
+
+    public boolean isOperator(int index, char operator) {
+        checkIndex(index);
+        return plain[index] && ends[index] - starts[index] == 1 && chars[starts[index]] == operator;
+    }
+
+    public String[] toArray(int from, int to) {
+        String[] values = new String[to - from];
+        for (int i = from; i < to; i++) {
+            values[i - from] = get(i);
+        }
+        return values;
+    }
+
+    private static boolean isOperator(char c) {
+        return c == '&' || c == '|';
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+    }
+
+    private void startToken() {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            plain = Arrays.copyOf(plain, count * 2);
+        }
+        starts[count] = length;
+    }
+
+    private void endToken(boolean unquoted) {
+        ends[count] = length;
+        plain[count] = unquoted;
+        count++;
+    }
+
+    private void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+    }
+}
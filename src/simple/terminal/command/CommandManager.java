@@ -31,44 +31,62 @@ package simple.terminal.command;
 
 import simple.terminal.CommandExecutor;
 import simple.terminal.PredictionGenerator;
+import simple.terminal.TerminalLogger;
+import simple.terminal.validation.ParameterException;
 import simple.terminal.validation.ValidationException;
 
-import java.util.*;
+import java.util.List;
+import java.util.function.Predicate;
 
 import static java.util.stream.Collectors.toList;
 
 public class CommandManager implements PredictionGenerator, CommandExecutor {
-    private final Map<String, List<TerminalCommand>> commandMap = new HashMap<>();
+    private final Object writeLock = new Object();
+    private volatile CommandTrie commandIndex = CommandTrie.EMPTY;
+    private final CommandMetrics metrics = new CommandMetrics();
 
     public void addCommand(TerminalCommand command) {
-        String commandName = command.getName();
-        addSubCommands(commandName, command);
+        synchronized (writeLock) {
+            commandIndex = commandIndex.add(command);
+        }
     }
 
-    private void addSubCommands(String commandName, TerminalCommand command) {
-        addCommand("", command);
-        for (int length = 1; length <= commandName.length(); length++) {
-            String substring = commandName.substring(0, length);
-            addCommand(substring, command);
+    public boolean removeCommand(TerminalCommand command) {
+        synchronized (writeLock) {
+            CommandTrie updated = commandIndex.remove(command);
+            if (updated == commandIndex) {
+                return false;
+            }
+            commandIndex = updated;
+            return true;
         }
     }
 
-    private void addCommand(String commandName, TerminalCommand command) {
-        List<TerminalCommand> list = commandMap.get(commandName);
-        if (list == null) {
-            list = new LinkedList<>();
-            commandMap.put(commandName, list);
+    public boolean replaceCommand(TerminalCommand oldCommand, TerminalCommand newCommand) {
+        synchronized (writeLock) {
+            CommandTrie updated = commandIndex.remove(oldCommand);
+            if (updated == commandIndex) {
+                return false;
+            }
+            commandIndex = updated.add(newCommand);
+            return true;
         }
-        list.add(command);
     }
 
     public List<TerminalCommand> estimate(String partialCommand, int limit) {
-        List<TerminalCommand> list = commandMap.get(partialCommand);
-        if (list == null) {
-            return Collections.emptyList();
-        } else {
-            return list.stream().limit(limit).collect(toList());
-        }
+        return commandIndex.collect(partialCommand, limit);
+    }
+
+    public List<TerminalCommand> getCommands(String commandName) {
+        return commandIndex.get(commandName);
+    }
+
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean visitCommands(Predicate<TerminalCommand> visitor) {
+        return commandIndex.visit(visitor);
     }
 
     @Override
@@ -77,29 +95,68 @@ public class CommandManager implements PredictionGenerator, CommandExecutor {
         return predictions.stream().map(TerminalCommand::toString).collect(toList());
     }
 
+    /**
+     * Runs the command named {@code commandName} that accepts the given number of arguments. A command with
+     * that exact arity is preferred over a varargs command; when several commands qualify, the one registered
+     * first is used.
+     */
     public void execute(String commandName, TerminalCommand.Params values) throws ValidationException {
-        List<TerminalCommand> list = commandMap.get(commandName);
-        if (list == null) {
+        long start = metrics.sampleResolution() ? System.nanoTime() : 0;
+        CommandTrie.Dispatch dispatch = commandIndex.dispatch(commandName);
+        if (dispatch == null) {
+            metrics.recordUnresolved("Command not found!");
             throw new ValidationException("Command not found!");
-        } else {
-            List<TerminalCommand> commands = list.stream().filter(c -> c.getName().equals(commandName)).collect(toList());
-            if (commands.isEmpty()) {
-                throw new ValidationException("Command not found!");
-            } else {
-                commands = list.stream().filter(c -> c.validate(values.getValues())).collect(toList());
-                if (commands.isEmpty()) {
-                    throw new ValidationException("Command found, but the parameter arity is not right!");
-                } else if (commands.size() > 1) {
-                    Optional<TerminalCommand> command = commands.stream().filter(TerminalCommand::isDetermined).findFirst();
-                    if (!command.isPresent() && command.get().executeCommand(values)) {
-                        throw new ValidationException("Command execution failed!");
-                    }
-                } else {
-                    if (!commands.get(0).executeCommand(values)) {
-                        throw new ValidationException("Command execution failed!");
-                    }
-                }
+        }
+        TerminalCommand command = dispatch.resolve(values.getValues() == null ? 0 : values.getValues().length);
+        if (command == null) {
+            metrics.recordUnresolved("Command found, but the parameter arity is not right!");
+            throw new ValidationException("Command found, but the parameter arity is not right!");
+        }
+        if (!run(command, values, start)) {
+            throw new ValidationException("Command execution failed!");
+        }
+    }
+
+    private boolean run(TerminalCommand command, TerminalCommand.Params values, long start) {
+        if (!metrics.isEnabled()) {
+            return command.executeCommand(values);
+        }
+
+        CommandStats stats = metrics.get(command);
+        TerminalLogger logger = values.getLogger();
+        CommandStats.OutputTimer timer = CommandStats.OutputTimer.get();
+        CommandStats outerStats = timer.getStats();
+        TerminalLogger outerLogger = timer.getLogger();
+        timer.set(stats, logger);
+        values.setLogger(timer);
+        long resolved = System.nanoTime();
+        try {
+            boolean result = command.executeCommand(values);
+            if (!result) {
+                stats.recordError("Command execution failed!");
             }
+            return result;
+        } catch (BrokenPipeException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            stats.recordError(errorKey(e));
+            throw e;
+        } finally {
+            stats.recordInvocation(start == 0 ? -1 : resolved - start, System.nanoTime() - resolved);
+            timer.set(outerStats, outerLogger);
+            values.setLogger(logger);
+        }
+    }
+
+    /**
+     * Groups errors by exception type and, for arguments not matching a parameter, by parameter name. Messages
+     * quote user input, so keying by message would grow the error map without bound.
+     */
+    private static String errorKey(RuntimeException e) {
+        String type = e.getClass().getSimpleName();
+        if (e instanceof ParameterException && ((ParameterException) e).getParameter() != null) {
+            return type + " " + ((ParameterException) e).getParameter();
         }
+        return type;
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Execution statistics of every command run through a {@link CommandManager}. Calls that could not be resolved
+ * to a command are counted under {@link #UNRESOLVED}, with their errors.
+ */
+public class CommandMetrics {
+    public static final String UNRESOLVED = "<unresolved>";
+
+    private final Map<TerminalCommand, CommandStats> commands = new ConcurrentHashMap<>();
+    private final CommandStats unresolved = new CommandStats(UNRESOLVED);
+    private volatile boolean enabled = true;
+    private int calls = 0;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns true when the resolution of the next call should be timed, for the first and then one in every
+     * {@link CommandStats#SAMPLE_INTERVAL} calls. The counter is not synchronized, racing calls only shift the
+     * sample.
+     */
+    boolean sampleResolution() {
+        return enabled && calls++ % CommandStats.SAMPLE_INTERVAL == 0;
+    }
+
+    CommandStats get(TerminalCommand command) {
+        CommandStats stats = commands.get(command);
+        if (stats == null) {
+            stats = commands.computeIfAbsent(command, key -> new CommandStats(key.toString()));
+        }
+        return stats;
+    }
+
+    void recordUnresolved(String message) {
+        if (enabled) {
+            unresolved.recordError(message);
+        }
+    }
+
+    public List<CommandStats> getStats() {
+        List<CommandStats> result = new ArrayList<>(commands.values());
+        result.sort(Comparator.comparing(CommandStats::getName));
+        if (unresolved.getErrorCount() > 0) {
+            result.add(unresolved);
+        }
+        return result;
+    }
+
+    public void reset() {
+        commands.clear();
+        unresolved.reset();
+    }
+
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-24s %8s %6s %10s %10s %10s %10s %10s %10s", "command", "calls", "errors",
+                "mean(us)", "p50(us)", "p99(us)", "max(us)", "resolve(us)", "output(us)"));
+        for (CommandStats stats : getStats()) {
+            LatencyHistogram latency = stats.getLatency();
+            long calls = stats.getInvocations();
+            lines.add(String.format("%-24s %8d %6d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f", stats.getName(), calls,
+                    stats.getErrorCount(), mean(stats.getExecutionTime(), calls), latency.getPercentile(50) / 1e3,
+                    latency.getPercentile(99) / 1e3, latency.getMax() / 1e3, mean(stats.getResolutionTime(), calls),
+                    mean(stats.getOutputTime(), calls)));
+            for (Map.Entry<String, Long> error : stats.getErrors().entrySet()) {
+                lines.add(String.format("    %6d x %s", error.getValue(), error.getKey()));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes one CSV row per command, latencies in nanoseconds.
+     */
+    public void export(Path file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.println("command,calls,errors,resolution_ns,execution_ns,p50_ns,p90_ns,p99_ns,p999_ns,max_ns,output_ns,output_lines");
+            for (CommandStats stats : getStats()) {
+                LatencyHistogram latency = stats.getLatency();
+                writer.println(quote(stats.getName()) + "," + stats.getInvocations() + "," + stats.getErrorCount() + ","
+                        + stats.getResolutionTime() + "," + stats.getExecutionTime() + "," + latency.getPercentile(50) + "," + latency.getPercentile(90) + ","
+                        + latency.getPercentile(99) + "," + latency.getPercentile(99.9) + "," + latency.getMax() + ","
+                        + stats.getOutputTime() + "," + stats.getOutputLines());
+            }
+            if (writer.checkError()) {
+                throw new IOException("Cannot write " + file);
+            }
+        }
+    }
+
+    private static double mean(long nanos, long count) {
+        return count == 0 ? 0.0 : nanos / 1e3 / count;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import simple.terminal.TerminalLogger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of a single command: invocation and error counts, the latency of the command body
+ * and the time spent resolving the command and writing its output. Resolution and single output lines are
+ * only timed for a sample of one in {@link #SAMPLE_INTERVAL}, as they take about as long as reading the clock;
+ * their totals are estimated from the sample.
+ */
+public class CommandStats {
+    static final int SAMPLE_INTERVAL = 16;
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder resolutionTime = new LongAdder();
+    private final LongAdder resolutionSamples = new LongAdder();
+    private final LongAdder executionTime = new LongAdder();
+    private final LongAdder outputTime = new LongAdder();
+    private final LongAdder outputLines = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    CommandStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a call; {@code resolutionNanos} is negative when the resolution of this call was not timed.
+     */
+    void recordInvocation(long resolutionNanos, long executionNanos) {
+        invocations.increment();
+        if (resolutionNanos >= 0) {
+            resolutionTime.add(resolutionNanos);
+            resolutionSamples.increment();
+        }
+        executionTime.add(executionNanos);
+        latency.record(executionNanos);
+    }
+
+    void recordError(String message) {
+        errors.computeIfAbsent(message == null ? "unknown error" : message, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Times the output of the commands run on one thread, attributing it to the command running there. The timer
+     * is reused for every command the thread runs, so timing output does not allocate.
+     */
+    static final class OutputTimer implements TerminalLogger {
+        private static final ThreadLocal<OutputTimer> TIMERS = ThreadLocal.withInitial(OutputTimer::new);
+
+        private CommandStats stats;
+        private TerminalLogger logger;
+        private int lines = 0;
+
+        static OutputTimer get() {
+            return TIMERS.get();
+        }
+
+        CommandStats getStats() {
+            return stats;
+        }
+
+        TerminalLogger getLogger() {
+            return logger;
+        }
+
+        /**
+         * Sends the output to {@code logger}, counted for {@code stats}. A command run by another command on the
+         * same thread may be given the timer itself, whose current logger is kept then.
+         */
+        void set(CommandStats stats, TerminalLogger logger) {
+            this.stats = stats;
+            if (logger != this) {
+                this.logger = logger;
+            }
+        }
+
+        @Override
+        public void log(String source, String message) {
+            stats.outputLines.increment();
+            if (lines++ % SAMPLE_INTERVAL != 0) {
+                logger.log(source, message);
+                return;
+            }
+            long start = System.nanoTime();
+            logger.log(source, message);
+            stats.outputTime.add((System.nanoTime() - start) * SAMPLE_INTERVAL);
+        }
+
+        @Override
+        public void log(String source, List<String> messages) {
+            long start = System.nanoTime();
+            logger.log(source, messages);
+            stats.outputTime.add(System.nanoTime() - start);
+            stats.outputLines.add(messages.size());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getErrorCount() {
+        long count = 0;
+        for (LongAdder error : errors.values()) {
+            count += error.sum();
+        }
+        return count;
+    }
+
+    public Map<String, Long> getErrors() {
+        Map<String, Long> result = new TreeMap<>();
+        errors.forEach((message, count) -> result.put(message, count.sum()));
+        return result;
+    }
+
+    public long getResolutionTime() {
+        long samples = resolutionSamples.sum();
+        return samples == 0 ? 0 : resolutionTime.sum() * getInvocations() / samples;
+    }
+
+    public long getExecutionTime() {
+        return executionTime.sum();
+    }
+
+    public long getOutputTime() {
+        return outputTime.sum();
+    }
+
+    public long getOutputLines() {
+        return outputLines.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    void reset() {
+        invocations.reset();
+        resolutionTime.reset();
+        resolutionSamples.reset();
+        executionTime.reset();
+        outputTime.reset();
+        outputLines.reset();
+        latency.reset();
+        errors.clear();
+    }
+}
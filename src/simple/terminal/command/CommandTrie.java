@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package simple.terminal.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Immutable radix trie indexing commands by name. Every command is stored exactly once, on the
+ * node where its name ends, so prefix queries walk the prefix and then visit only as many nodes
+ * as needed to collect the requested number of commands. Updates copy the path to the changed
+ * node and return a new trie, so a published instance can be read from any thread without locking.
+ */
+final class CommandTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final TerminalCommand[] NO_COMMANDS = new TerminalCommand[0];
+
+    public static final CommandTrie EMPTY = new CommandTrie(new Node("", NO_CHILDREN, NO_COMMANDS), 0);
+
+    /**
+     * Commands sharing a name, indexed by the number of arguments they accept. A command with a fixed arity
+     * takes precedence over a varargs command, and among commands accepting the same arguments the first
+     * registered one wins.
+     */
+    static final class Dispatch {
+        private final TerminalCommand[] byArity;
+        private final TerminalCommand varargs;
+
+        private Dispatch(TerminalCommand[] commands) {
+            int maxArity = -1;
+            for (TerminalCommand command : commands) {
+                if (command.isDetermined()) {
+                    maxArity = Math.max(maxArity, arity(command));
+                }
+            }
+            TerminalCommand[] byArity = new TerminalCommand[maxArity + 1];
+            TerminalCommand varargs = null;
+            for (TerminalCommand command : commands) {
+                if (!command.isDetermined()) {
+                    varargs = varargs == null ? command : varargs;
+                } else if (byArity[arity(command)] == null) {
+                    byArity[arity(command)] = command;
+                }
+            }
+            this.byArity = byArity;
+            this.varargs = varargs;
+        }
+
+        private static int arity(TerminalCommand command) {
+            return Math.max(0, command.getArity());
+        }
+
+        TerminalCommand resolve(int argumentCount) {
+            if (argumentCount < byArity.length && byArity[argumentCount] != null) {
+                return byArity[argumentCount];
+            }
+            return varargs;
+        }
+    }
+
+    private static final class Node {
+        private final String edge;
+        private final Node[] children;
+        private final TerminalCommand[] commands;
+        private final Dispatch dispatch;
+
+        private Node(String edge, Node[] children, TerminalCommand[] commands) {
+            this(edge, children, commands, commands.length == 0 ? null : new Dispatch(commands));
+        }
+
+        private Node(String edge, Node[] children, TerminalCommand[] commands, Dispatch dispatch) {
+            this.edge = edge;
+            this.children = children;
+            this.commands = commands;
+            this.dispatch = dispatch;
+        }
+
+        private int indexOf(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char value = children[middle].edge.charAt(0);
+                if (value < c) {
+                    low = middle + 1;
+                } else if (value > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private CommandTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public CommandTrie add(TerminalCommand command) {
+        return new CommandTrie(add(root, command.getName(), 0, command), size + 1);
+    }
+
+    public CommandTrie remove(TerminalCommand command) {
+        Node result = remove(root, command.getName(), 0, command);
+        if (result == root) {
+            return this;
+        }
+        return new CommandTrie(result == null ? EMPTY.root : result, size - 1);
+    }
+
+    public List<TerminalCommand> get(String name) {
+        Node node = find(name, true);
+        if (node == null || node.commands.length == 0) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(node.commands));
+    }
+
+    /**
+     * Returns the dispatch entry of the commands named exactly {@code name}, or null when there is none.
+     */
+    Dispatch dispatch(String name) {
+        Node node = find(name, true);
+        return node == null ? null : node.dispatch;
+    }
+
+    public List<TerminalCommand> collect(String prefix, int limit) {
+        Node node = find(prefix, false);
+        if (node == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<TerminalCommand> result = new ArrayList<>(Math.min(limit, size));
+        collect(node, result, limit);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean visit(Predicate<TerminalCommand> visitor) {
+        return visit(root, visitor);
+    }
+
+    private static boolean visit(Node node, Predicate<TerminalCommand> visitor) {
+        for (TerminalCommand command : node.commands) {
+            if (!visitor.test(command)) {
+                return false;
+            }
+        }
+        for (Node child : node.children) {
+            if (!visit(child, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Node add(Node node, String name, int offset, TerminalCommand command) {
+        if (offset == name.length()) {
+            TerminalCommand[] commands = Arrays.copyOf(node.commands, node.commands.length + 1);
+            commands[commands.length - 1] = command;
+            return new Node(node.edge, node.children, commands);
+        }
+
+        int index = node.indexOf(name.charAt(offset));
+        if (index < 0) {
+            Node leaf = new Node(name.substring(offset), NO_CHILDREN, new TerminalCommand[]{command});
+            return new Node(node.edge, insert(node.children, -index - 1, leaf), node.commands, node.dispatch);
+        }
+
+        Node child = node.children[index];
+        int common = commonPrefix(child.edge, name, offset);
+        if (common < child.edge.length()) {
+            Node tail = new Node(child.edge.substring(common), child.children, child.commands, child.dispatch);
+            child = new Node(child.edge.substring(0, common), new Node[]{tail}, NO_COMMANDS);
+        }
+        Node[] children = node.children.clone();
+        children[index] = add(child, name, offset + common, command);
+        return new Node(node.edge, children, node.commands, node.dispatch);
+    }
+
+    private static Node remove(Node node, String name, int offset, TerminalCommand command) {
+        if (offset == name.length()) {
+            int position = indexOf(node.commands, command);
+            if (position < 0) {
+                return node;
+            }
+            return compact(new Node(node.edge, node.children, delete(node.commands, position, NO_COMMANDS)));
+        }
+
+        int index = node.indexOf(name.charAt(offset));
+        if (index < 0) {
+            return node;
+        }
+        Node child = node.children[index];
+        int common = commonPrefix(child.edge, name, offset);
+        if (common < child.edge.length()) {
+            return node;
+        }
+
+        Node replacement = remove(child, name, offset + common, command);
+        if (replacement == child) {
+            return node;
+        }
+        Node[] children;
+        if (replacement == null) {
+            children = delete(node.children, index, NO_CHILDREN);
+        } else {
+            children = node.children.clone();
+            children[index] = replacement;
+        }
+        return compact(new Node(node.edge, children, node.commands, node.dispatch));
+    }
+
+    private static Node compact(Node node) {
+        if (node.edge.isEmpty() || node.commands.length > 0 || node.children.length > 1) {
+            return node;
+        } else if (node.children.length == 0) {
+            return null;
+        } else {
+            Node child = node.children[0];
+            return new Node(node.edge + child.edge, child.children, child.commands, child.dispatch);
+        }
+    }
+
+    private static void collect(Node node, List<TerminalCommand> result, int limit) {
+        for (TerminalCommand command : node.commands) {
+            if (result.size() >= limit) {
+                return;
+            }
+            result.add(command);
+        }
+        for (Node child : node.children) {
+            if (result.size() >= limit) {
+                return;
+            }
+            collect(child, result, limit);
+        }
+    }
+
+    private Node find(String key, boolean exact) {
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            int index = node.indexOf(key.charAt(offset));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.edge, key, offset);
+            if (offset + common == key.length()) {
+                return exact && common < child.edge.length() ? null : child;
+            } else if (common < child.edge.length()) {
+                return null;
+            }
+            node = child;
+            offset += common;
+        }
+        return node;
+    }
+
+    private static int indexOf(TerminalCommand[] commands, TerminalCommand command) {
+        for (int i = 0; i < commands.length; i++) {
+            if (commands[i] == command) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Node[] insert(Node[] nodes, int index, Node node) {
+        Node[] result = new Node[nodes.length + 1];
+        System.arraycopy(nodes, 0, result, 0, index);
+        result[index] = node;
+        System.arraycopy(nodes, index, result, index + 1, nodes.length - index);
+        return result;
+    }
+
+    private static <T> T[] delete(T[] values, int index, T[] empty) {
+        if (values.length == 1) {
+            return empty;
+        }
+        T[] result = Arrays.copyOf(values, values.length - 1);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        return result;
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int length = Math.min(edge.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && edge.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
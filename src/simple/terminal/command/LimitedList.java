@@ -29,38 +29,61 @@
 
 package simple.terminal.command;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class LimitedList<E> {
-    private List<E> delegate;
-    private int maxSize = 0;
+    private final Object[] elements;
+    private int first = 0;
+    private int size = 0;
 
     public LimitedList(int maxSize) {
-        this.maxSize = maxSize;
-        delegate = new ArrayList<>(maxSize + 1);
+        elements = new Object[Math.max(0, maxSize)];
     }
 
     public boolean add(E e) {
-        if (e == null || maxSize == 0) {
+        if (e == null || elements.length == 0) {
             return true;
         }
-        delegate.add(e);
-        if (delegate.size() > maxSize) {
-            delegate.remove(0);
+        if (size == elements.length) {
+            elements[first] = e;
+            first = (first + 1) % elements.length;
+        } else {
+            elements[(first + size) % elements.length] = e;
+            size++;
         }
         return false;
     }
 
     public E remove(int index) {
-        return delegate.remove(index);
+        E element = get(index);
+        if (index == 0) {
+            elements[first] = null;
+            first = (first + 1) % elements.length;
+        } else {
+            for (int i = index; i < size - 1; i++) {
+                elements[slot(i)] = elements[slot(i + 1)];
+            }
+            elements[slot(size - 1)] = null;
+        }
+        size--;
+        return element;
     }
 
+    @SuppressWarnings("unchecked")
     public E get(int index) {
-        return delegate.get(index);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (E) elements[slot(index)];
     }
 
     public int size() {
-        return delegate.size();
+        return size;
+    }
+
+    public int getMaxSize() {
+        return elements.length;
+    }
+
+    private int slot(int index) {
+        return (first + index) % elements.length;
     }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import simple.terminal.Session;
+import simple.terminal.validation.ParameterException;
+import simple.terminal.validation.ValidationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled form of a {@link ParameterSchema}: parameters are numbered, named parameters are indexed by name,
+ * and the arguments are converted and checked in a single pass into an array of values, one per parameter.
+ * Also completes arguments from the declared parameters.
+ */
+final class ParameterMatcher implements ArgumentCompleter {
+    private final ParameterSchema.Parameter[] parameters;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final int[] positionals;
+    private final int required;
+    private final int varargs;
+    private final int maxArguments;
+    private final String usage;
+
+    ParameterMatcher(String commandName, ParameterSchema schema) {
+        this.parameters = schema.getParameters().toArray(new ParameterSchema.Parameter[0]);
+        List<Integer> positionals = new ArrayList<>();
+        int required = 0;
+        int varargs = -1;
+        int maxArguments = 0;
+        StringBuilder usage = new StringBuilder(commandName);
+        for (int slot = 0; slot < parameters.length; slot++) {
+            ParameterSchema.Parameter parameter = parameters[slot];
+            slots.put(parameter.name, slot);
+            usage.append(' ').append(parameter.usage());
+            switch (parameter.kind) {
+                case FLAG:
+                    maxArguments++;
+                    break;
+                case OPTION:
+                    maxArguments += 2;
+                    break;
+                case REQUIRED:
+                case OPTIONAL:
+                    if (parameter.kind == ParameterSchema.Kind.REQUIRED) {
+                        required++;
+                    }
+                    positionals.add(slot);
+                    maxArguments++;
+                    break;
+                case VARARGS:
+                    varargs = slot;
+                    maxArguments = Integer.MAX_VALUE;
+                    break;
+            }
+        }
+        this.positionals = positionals.stream().mapToInt(Integer::intValue).toArray();
+        this.required = required;
+        this.varargs = varargs;
+        this.maxArguments = maxArguments;
+        this.usage = usage.toString();
+    }
+
+    String getUsage() {
+        return usage;
+    }
+
+    boolean acceptsArguments(int count) {
+        return count <= maxArguments;
+    }
+
+    /**
+     * Returns the slot of the parameter named {@code name}.
+     */
+    int slot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("No parameter named " + name);
+        }
+        return slot;
+    }
+
+    Object[] parse(String[] arguments, Session session) {
+        Object[] values = new Object[parameters.length];
+        List<Object> rest = varargs < 0 ? null : new ArrayList<>();
+        int positional = 0;
+        boolean options = true;
+        for (int i = 0; i < arguments.length; i++) {
+            String argument = arguments[i];
+            if (options && argument.equals("--")) {
+                options = false;
+            } else if (options && isOption(argument, positional)) {
+                Integer slot = slots.get(argument);
+                if (slot == null || !parameters[slot].isNamed()) {
+                    throw new ParameterException("Unknown option " + argument, null, usage);
+                }
+                ParameterSchema.Parameter option = parameters[slot];
+                if (option.kind == ParameterSchema.Kind.FLAG) {
+                    values[slot] = Boolean.TRUE;
+                } else if (i + 1 == arguments.length) {
+                    throw new ParameterException("Missing value for " + option, option.name, usage);
+                } else {
+                    values[slot] = convert(option, arguments[++i], session);
+                }
+            } else if (positional < positionals.length) {
+                int slot = positionals[positional++];
+                values[slot] = convert(parameters[slot], argument, session);
+            } else if (rest != null) {
+                rest.add(convert(parameters[varargs], argument, session));
+            } else {
+                throw new ParameterException("Unexpected argument '" + argument + "'", null, usage);
+            }
+        }
+        if (positional < required) {
+            ParameterSchema.Parameter missing = parameters[positionals[positional]];
+            throw new ParameterException("Missing argument " + missing, missing.name, usage);
+        }
+        if (rest != null) {
+            values[varargs] = Collections.unmodifiableList(rest);
+        }
+        return values;
+    }
+
+    /**
+     * Returns true when {@code argument} is a flag or an option name: it starts with {@code -} and is either a
+     * declared name or not a number expected by the next positional parameter.
+     */
+    private boolean isOption(String argument, int positional) {
+        if (argument.length() < 2 || argument.charAt(0) != '-') {
+            return false;
+        }
+        Integer named = slots.get(argument);
+        if (named != null && parameters[named].isNamed()) {
+            return true;
+        }
+        int slot = positional < positionals.length ? positionals[positional] : varargs;
+        return slot < 0 || !parameters[slot].type.isNumeric() || !isNumber(argument);
+    }
+
+    private static boolean isNumber(String argument) {
+        try {
+            Long.parseLong(argument);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private Object convert(ParameterSchema.Parameter parameter, String argument, Session session) {
+        try {
+            return parameter.type.parse(argument, session);
+        } catch (ValidationException e) {
+            throw new ParameterException("Invalid " + parameter + ": " + e.getMessage(), parameter.name, usage);
+        }
+    }
+
+    /**
+     * Completes the value of an option right after its name, the names of the flags and options not given yet
+     * when the partial argument starts with {@code -}, and the next positional parameter otherwise.
+     */
+    @Override
+    public List<String> complete(Session session, String[] arguments, String partialArgument, int limit) {
+        boolean[] given = new boolean[parameters.length];
+        int positional = 0;
+        boolean options = true;
+        for (int i = 0; i < arguments.length; i++) {
+            Integer slot = options ? slots.get(arguments[i]) : null;
+            if (options && arguments[i].equals("--")) {
+                options = false;
+            } else if (slot != null && parameters[slot].isNamed()) {
+                given[slot] = true;
+                if (parameters[slot].kind == ParameterSchema.Kind.OPTION && ++i == arguments.length) {
+                    return parameters[slot].type.complete(session, arguments, partialArgument, limit);
+                }
+            } else {
+                positional++;
+            }
+        }
+
+        if (options && partialArgument.startsWith("-")) {
+            List<String> completions = new ArrayList<>();
+            for (int slot = 0; slot < parameters.length && completions.size() < limit; slot++) {
+                if (parameters[slot].isNamed() && !given[slot] && parameters[slot].name.startsWith(partialArgument)) {
+                    completions.add(parameters[slot].name);
+                }
+            }
+            return completions;
+        }
+        int slot = positional < positionals.length ? positionals[positional] : varargs;
+        return slot < 0 ? Collections.<String>emptyList() : parameters[slot].type.complete(session, arguments, partialArgument, limit);
+    }
+}
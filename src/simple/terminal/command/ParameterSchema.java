@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parameters a command accepts: flags and named options, which start with {@code -} and may appear anywhere,
+ * followed by required, optional and finally varargs positional parameters. {@code --} ends the options; a
+ * negative number where a numeric value is expected is taken as the value, not as an option.
+ * A {@link TerminalCommand} compiles its schema once, when it is created; the command then reads the parsed
+ * values from {@link TerminalCommand.Params#get(String)} under the declared names.
+ *
+ * <pre>new ParameterSchema().flag("-l").option("-n", ParameterType.LONG).optional("folder", ParameterType.PATH)</pre>
+ */
+public class ParameterSchema {
+    enum Kind {
+        FLAG, OPTION, REQUIRED, OPTIONAL, VARARGS
+    }
+
+    static final class Parameter {
+        final String name;
+        final Kind kind;
+        final ParameterType<?> type;
+
+        private Parameter(String name, Kind kind, ParameterType<?> type) {
+            this.name = name;
+            this.kind = kind;
+            this.type = type;
+        }
+
+        boolean isNamed() {
+            return kind == Kind.FLAG || kind == Kind.OPTION;
+        }
+
+        /**
+         * Returns the parameter as shown in the usage of the command.
+         */
+        String usage() {
+            switch (kind) {
+                case REQUIRED:
+                    return toString();
+                case OPTIONAL:
+                    return "[" + name + "]";
+                case VARARGS:
+                    return "[" + name + "...]";
+                default:
+                    return "[" + this + "]";
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case FLAG:
+                    return name;
+                case OPTION:
+                    return name + " <" + type.getName() + ">";
+                default:
+                    return "<" + name + ">";
+            }
+        }
+    }
+
+    private final List<Parameter> parameters = new ArrayList<>();
+
+    public ParameterSchema flag(String name) {
+        return add(new Parameter(name, Kind.FLAG, null));
+    }
+
+    public ParameterSchema option(String name, ParameterType<?> type) {
+        return add(new Parameter(name, Kind.OPTION, type));
+    }
+
+    public ParameterSchema required(String name, ParameterType<?> type) {
+        return add(new Parameter(name, Kind.REQUIRED, type));
+    }
+
+    public ParameterSchema optional(String name, ParameterType<?> type) {
+        return add(new Parameter(name, Kind.OPTIONAL, type));
+    }
+
+    public ParameterSchema varargs(String name, ParameterType<?> type) {
+        return add(new Parameter(name, Kind.VARARGS, type));
+    }
+
+    private ParameterSchema add(Parameter parameter) {
+        if (parameter.isNamed() != parameter.name.startsWith("-")) {
+            throw new IllegalArgumentException("Only flags and options start with '-': " + parameter.name);
+        }
+        for (Parameter declared : parameters) {
+            if (declared.name.equals(parameter.name)) {
+                throw new IllegalArgumentException("Parameter declared twice: " + parameter.name);
+            }
+            if (!parameter.isNamed() && declared.kind.compareTo(parameter.kind) > 0
+                    || !parameter.isNamed() && declared.kind == Kind.VARARGS) {
+                throw new IllegalArgumentException("Parameter " + parameter.name + " cannot follow " + declared.name);
+            }
+        }
+        parameters.add(parameter);
+        return this;
+    }
+
+    List<Parameter> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import simple.terminal.Session;
+import simple.terminal.validation.ValidationException;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Type of a parameter declared in a {@link ParameterSchema}: converts an argument to its value, throwing a
+ * {@link ValidationException} with the reason when it cannot, and completes partial arguments.
+ */
+public interface ParameterType<T> {
+    ParameterType<String> STRING = of("text", (value, session) -> value);
+    ParameterType<Integer> INT = integer(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    ParameterType<Long> LONG = longInteger(Long.MIN_VALUE, Long.MAX_VALUE);
+    /**
+     * Path resolved against the working directory of the session, or of the process outside of a session.
+     */
+    ParameterType<Path> PATH = of("path", (value, session) -> {
+        try {
+            return session == null ? Paths.get("").toAbsolutePath().resolve(value).normalize() : session.resolve(value);
+        } catch (InvalidPathException e) {
+            throw new ValidationException("'" + value + "' is not a valid path");
+        }
+    });
+
+    String getName();
+
+    T parse(String value, Session session);
+
+    /**
+     * Returns true when the values are numbers, so an argument like {@code -5} is a value and not an option.
+     */
+    default boolean isNumeric() {
+        return false;
+    }
+
+    default List<String> complete(Session session, String[] arguments, String partialArgument, int limit) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the same type, completed by {@code completer}.
+     */
+    default ParameterType<T> completedBy(ArgumentCompleter completer) {
+        ParameterType<T> type = this;
+        return new ParameterType<T>() {
+            @Override
+            public String getName() {
+                return type.getName();
+            }
+
+            @Override
+            public T parse(String value, Session session) {
+                return type.parse(value, session);
+            }
+
+            @Override
+            public boolean isNumeric() {
+                return type.isNumeric();
+            }
+
+            @Override
+            public List<String> complete(Session session, String[] arguments, String partialArgument, int limit) {
+                return completer.complete(session, arguments, partialArgument, limit);
+            }
+        };
+    }
+
+    static <T> ParameterType<T> of(String name, BiFunction<String, Session, T> parser) {
+        return new ParameterType<T>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public T parse(String value, Session session) {
+                return parser.apply(value, session);
+            }
+        };
+    }
+
+    static ParameterType<Integer> integer(int min, int max) {
+        return numeric("int", (value, session) -> (int) parseLong(value, min, max));
+    }
+
+    static ParameterType<Long> longInteger(long min, long max) {
+        return numeric("number", (value, session) -> parseLong(value, min, max));
+    }
+
+    static <T> ParameterType<T> numeric(String name, BiFunction<String, Session, T> parser) {
+        return new ParameterType<T>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public T parse(String value, Session session) {
+                return parser.apply(value, session);
+            }
+
+            @Override
+            public boolean isNumeric() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Parses a number between {@code min} and {@code max}, both included.
+     */
+    static long parseLong(String value, long min, long max) {
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("'" + value + "' is not a number");
+        }
+        if (number < min || number > max) {
+            throw new ValidationException(number + " is not between " + min + " and " + max);
+        }
+        return number;
+    }
+
+    /**
+     * One of the given values, which are also its completions.
+     */
+    static ParameterType<String> choice(String... values) {
+        List<String> choices = Collections.unmodifiableList(Arrays.asList(values.clone()));
+        String name = String.join("|", choices);
+        return new ParameterType<String>() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String parse(String value, Session session) {
+                if (!choices.contains(value)) {
+                    throw new ValidationException("'" + value + "' is not one of " + String.join(", ", choices));
+                }
+                return value;
+            }
+
+            @Override
+            public List<String> complete(Session session, String[] arguments, String partialArgument, int limit) {
+                List<String> completions = new ArrayList<>();
+                for (String choice : choices) {
+                    if (choice.startsWith(partialArgument) && completions.size() < limit) {
+                        completions.add(choice);
+                    }
+                }
+                return completions;
+            }
+        };
+    }
+}
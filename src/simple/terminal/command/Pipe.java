@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import simple.terminal.TerminalLogger;
+
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of records connecting two pipeline stages. The writing stage sees the pipe as its
+ * {@link TerminalLogger} and blocks while the pipe is full; the reading stage takes records with
+ * {@link #read()} until the writer closes the pipe. Once the reader closes its end, the buffered records are
+ * dropped and every further write fails with a {@link BrokenPipeException}, so upstream stages stop early.
+ */
+public class Pipe implements TerminalLogger {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final String[] records;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int head = 0;
+    private int count = 0;
+    private boolean closed = false;
+    private boolean inputClosed = false;
+
+    public Pipe() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public Pipe(int capacity) {
+        this.records = new String[capacity];
+    }
+
+    @Override
+    public void log(String source, String message) {
+        lock.lock();
+        try {
+            write(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void log(String source, List<String> messages) {
+        lock.lock();
+        try {
+            for (String message : messages) {
+                write(message);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(String record) {
+        while (count == records.length && !inputClosed) {
+            try {
+                notFull.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BrokenPipeException();
+            }
+        }
+        if (inputClosed) {
+            throw new BrokenPipeException();
+        }
+        records[(head + count) % records.length] = record;
+        count++;
+        notEmpty.signal();
+    }
+
+    /**
+     * Returns the next record, or null when the writer closed the pipe or the reading thread was interrupted.
+     */
+    public String read() {
+        lock.lock();
+        try {
+            while (count == 0 && !closed) {
+                try {
+                    notEmpty.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            String record = records[head];
+            records[head] = null;
+            head = (head + 1) % records.length;
+            count--;
+            notFull.signal();
+            return record;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the end of the records, called once the writing stage finished.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the reading end, called once the reading stage finished.
+     */
+    public void closeInput() {
+        lock.lock();
+        try {
+            inputClosed = true;
+            while (count > 0) {
+                records[head] = null;
+                head = (head + 1) % records.length;
+                count--;
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import simple.terminal.TerminalLogger;
+import simple.terminal.validation.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+/**
+ * Registers plugin commands from the {@link #INDEX_RESOURCE} files found on the class path. Each line of an
+ * index holds the command name, its arity (or {@code *} for varargs) and the {@link CommandPlugin} class:
+ * <pre>
+ * # name  arity  class
+ * touch   1      org.example.TouchCommand
+ * echo    *      org.example.EchoCommand
+ * </pre>
+ * Only the index is read at startup; the plugin classes are loaded when their command is first executed.
+ * Malformed lines are reported with the index and line number and skipped, the rest of the index is still
+ * loaded.
+ */
+public class PluginLoader {
+    public static final String INDEX_RESOURCE = "META-INF/simple-terminal/commands";
+    public static final String SOURCE = "plugins";
+
+    private final ClassLoader classLoader;
+
+    public PluginLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public int load(CommandManager commandManager, TerminalLogger errors) throws IOException {
+        int count = 0;
+        Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+        while (indexes.hasMoreElements()) {
+            count += load(indexes.nextElement(), commandManager, errors);
+        }
+        return count;
+    }
+
+    private int load(URL index, CommandManager commandManager, TerminalLogger errors) throws IOException {
+        int count = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    String[] fields = new String[3];
+                    if (split(line, fields) != 3) {
+                        throw new ValidationException("Expected a name, an arity and a class!");
+                    }
+                    commandManager.addCommand(createCommand(fields[0], fields[1], fields[2]));
+                    count++;
+                } catch (ValidationException e) {
+                    errors.log(SOURCE, index + ":" + lineNumber + ": " + e.getMessage() + " The entry is skipped.");
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int split(String line, String[] fields) {
+        int count = 0;
+        int position = 0;
+        while (position < line.length()) {
+            if (Character.isWhitespace(line.charAt(position))) {
+                position++;
+                continue;
+            }
+            int start = position;
+            while (position < line.length() && !Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            if (count == fields.length) {
+                return count + 1;
+            }
+            fields[count++] = line.substring(start, position);
+        }
+        return count;
+    }
+
+    private TerminalCommand createCommand(String name, String arity, String className) {
+        LazyCommand command = new LazyCommand(name, className, classLoader);
+        if (arity.equals("*")) {
+            return new TerminalCommand(name, command, true);
+        }
+        try {
+            return new TerminalCommand(name, command, Integer.parseInt(arity));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid arity " + arity + "!");
+        }
+    }
+}
@@ -29,19 +29,37 @@
 
 package simple.terminal.command;
 
+import simple.terminal.Session;
 import simple.terminal.TerminalLogger;
+import simple.terminal.validation.ValidationException;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 
 public class TerminalCommand {
     public static class Params {
         private String[] values;
         private TerminalLogger logger;
+        private Pipe input;
+        private Session session;
+        private ParameterMatcher matcher;
+        private Object[] arguments;
 
         public Params(String[] values, TerminalLogger logger) {
+            this(values, logger, null);
+        }
+
+        public Params(String[] values, TerminalLogger logger, Pipe input) {
+            this(values, logger, input, null);
+        }
+
+        public Params(String[] values, TerminalLogger logger, Pipe input, Session session) {
             this.values = values;
             this.logger = logger;
+            this.input = input;
+            this.session = session;
         }
 
         public String[] getValues() {
@@ -52,6 +70,56 @@ public class TerminalCommand {
             return logger;
         }
 
+        void setLogger(TerminalLogger logger) {
+            this.logger = logger;
+        }
+
+        /**
+         * Returns the records written by the previous pipeline stage, or null when the command is not piped.
+         */
+        public Pipe getInput() {
+            return input;
+        }
+
+        public boolean hasInput() {
+            return input != null;
+        }
+
+        /**
+         * Returns the session the command runs in, or null when it runs outside of any session.
+         */
+        public Session getSession() {
+            return session;
+        }
+
+        /**
+         * Returns the value of the parameter {@code name} declared in the schema of the command, or null when an
+         * option or optional parameter was not given.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T get(String name) {
+            if (matcher == null) {
+                throw new IllegalStateException("The command declares no parameters");
+            }
+            return (T) arguments[matcher.slot(name)];
+        }
+
+        public <T> T get(String name, T defaultValue) {
+            T value = get(name);
+            return value == null ? defaultValue : value;
+        }
+
+        public boolean isSet(String flag) {
+            return get(flag) != null;
+        }
+
+        /**
+         * Returns the values of the varargs parameter {@code name}.
+         */
+        public <T> List<T> getAll(String name) {
+            return get(name, Collections.<T>emptyList());
+        }
+
         @Override
         public String toString() {
             return Arrays.toString(values);
@@ -62,6 +130,8 @@ public class TerminalCommand {
     private int arity = -1;
     private boolean varargs = false;
     private Function<Params, Boolean> externalCommand;
+    private ArgumentCompleter argumentCompleter;
+    private ParameterMatcher matcher;
 
     public TerminalCommand(String name, Function<Params, Boolean> externalCommand, int arity) {
         this.name = name;
@@ -77,12 +147,47 @@ public class TerminalCommand {
         this.externalCommand = externalCommand;
     }
 
+    /**
+     * Creates a command taking the parameters declared by {@code schema}, which is compiled here. Arguments that
+     * do not match it fail with a {@link simple.terminal.validation.ParameterException}; the schema also
+     * completes the arguments unless an {@link ArgumentCompleter} is set.
+     */
+    public TerminalCommand(String name, Function<Params, Boolean> externalCommand, ParameterSchema schema) {
+        this(name, externalCommand, true);
+        this.matcher = new ParameterMatcher(name, schema);
+    }
+
     public String getName() {
         return name;
     }
 
+    public int getArity() {
+        return arity;
+    }
+
+    public ArgumentCompleter getArgumentCompleter() {
+        return argumentCompleter == null ? matcher : argumentCompleter;
+    }
+
+    /**
+     * Returns the usage of the command, or null when it declares no parameter schema.
+     */
+    public String getUsage() {
+        return matcher == null ? null : matcher.getUsage();
+    }
+
+    public TerminalCommand setArgumentCompleter(ArgumentCompleter argumentCompleter) {
+        this.argumentCompleter = argumentCompleter;
+        return this;
+    }
+
     public boolean executeCommand(Params params) {
-        if (validate(params.values)) {
+        if (matcher != null) {
+            params.values = params.values == null ? new String[0] : params.values;
+            params.arguments = matcher.parse(params.values, params.session);
+            params.matcher = matcher;
+            return externalCommand.apply(params);
+        } else if (validate(params.values)) {
             params.values = params.values == null ? new String[0] : params.values;
             return externalCommand.apply(params);
         } else {
@@ -94,8 +199,27 @@ public class TerminalCommand {
         return !varargs;
     }
 
+    public boolean acceptsArguments(int count) {
+        return matcher != null ? matcher.acceptsArguments(count) : varargs || count <= arity;
+    }
+
     public boolean validate(String[] values) {
-        if (varargs) {
+        return validate(values, null);
+    }
+
+    /**
+     * Checks that the values match the parameters of the command. Path parameters are resolved against the
+     * session, or the current directory when it is null.
+     */
+    public boolean validate(String[] values, Session session) {
+        if (matcher != null) {
+            try {
+                matcher.parse(values == null ? new String[0] : values, session);
+                return true;
+            } catch (ValidationException e) {
+                return false;
+            }
+        } else if (varargs) {
             return true;
         } else if (arity <= 0) {
             return values == null || values.length == 0;
@@ -106,6 +230,9 @@ public class TerminalCommand {
 
     @Override
     public String toString() {
+        if (matcher != null) {
+            return matcher.getUsage();
+        }
         StringBuilder sb = new StringBuilder();
         sb.append(name).append(" (");
         if (varargs) {
@@ -0,0 +1,158 @@
+package simple.terminal.completion;
+
+import simple.terminal.PredictionGenerator;
+import simple.terminal.Session;
+import simple.terminal.command.ArgumentCompleter;
+import simple.terminal.command.CommandLineTokenizer;
+import simple.terminal.command.CommandManager;
+import simple.terminal.command.TerminalCommand;
+import simple.terminal.validation.ValidationException;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked completions for the command line. Command names are matched fuzzily and ranked by match quality
+ * and usage; once a command name is followed by a space, the command's {@link ArgumentCompleter} takes over.
+ * The commands starting with the typed name are looked up in the command trie first, a bounded set of them is
+ * ranked and always listed first. Only when they do not fill the {@code limit} is the whole registry scanned
+ * for fuzzy matches, and that scan alone stops when the time budget is spent, keeping the best ones found so
+ * far. Usage is ranked per engine, so every terminal session should have its own.
+ */
+public class CompletionEngine implements PredictionGenerator {
+    public static final int DEFAULT_LIMIT = 10;
+    public static final long DEFAULT_BUDGET = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+    private static final int PREFIX_CANDIDATES_PER_SLOT = 4;
+
+    private static final class Candidate {
+        private final TerminalCommand command;
+        private final int score;
+
+        private Candidate(TerminalCommand command, int score) {
+            this.command = command;
+            this.score = score;
+        }
+    }
+
+    private static final Comparator<Candidate> WORST_FIRST = (first, second) -> {
+        if (first.score != second.score) {
+            return Integer.compare(first.score, second.score);
+        }
+        return second.command.getName().compareTo(first.command.getName());
+    };
+
+    private final CommandManager commandManager;
+    private final UsageStats usageStats = new UsageStats();
+    private final CommandLineTokenizer tokenizer = new CommandLineTokenizer();
+    private final int limit;
+    private final long budget;
+
+    public CompletionEngine(CommandManager commandManager) {
+        this(commandManager, DEFAULT_LIMIT, DEFAULT_BUDGET);
+    }
+
+    public CompletionEngine(CommandManager commandManager, int limit, long budget) {
+        this.commandManager = commandManager;
+        this.limit = limit;
+        this.budget = budget;
+    }
+
+    @Override
+    public synchronized void accepted(String commandLine) {
+        try {
+            if (tokenizer.tokenize(commandLine) > 0) {
+                usageStats.record(tokenizer.get(0));
+            }
+        } catch (ValidationException e) {
+            // incomplete command lines are not counted
+        }
+    }
+
+    @Override
+    public List<String> generate(String currentBuffer) {
+        return generate(currentBuffer, null);
+    }
+
+    @Override
+    public synchronized List<String> generate(String currentBuffer, Session session) {
+        int count;
+        try {
+            count = tokenizer.tokenize(currentBuffer);
+        } catch (ValidationException e) {
+            return Collections.emptyList();
+        }
+
+        boolean newArgument = !currentBuffer.isEmpty() && Character.isWhitespace(currentBuffer.charAt(currentBuffer.length() - 1));
+        if (count > 1 || (count == 1 && newArgument)) {
+            int arguments = newArgument ? count : count - 1;
+            String partialArgument = newArgument ? "" : tokenizer.get(count - 1);
+            return completeArgument(session, tokenizer.get(0), tokenizer.toArray(1, arguments), partialArgument);
+        } else {
+            return completeCommand(count == 0 ? "" : tokenizer.get(0));
+        }
+    }
+
+    private List<String> completeArgument(Session session, String commandName, String[] arguments, String partialArgument) {
+        Set<String> completions = new LinkedHashSet<>();
+        for (TerminalCommand command : commandManager.getCommands(commandName)) {
+            ArgumentCompleter completer = command.getArgumentCompleter();
+            if (completer != null && command.acceptsArguments(arguments.length + 1)) {
+                completions.addAll(completer.complete(session, arguments, partialArgument, limit - completions.size()));
+                if (completions.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return new ArrayList<>(completions);
+    }
+
+    private List<String> completeCommand(String query) {
+        List<TerminalCommand> prefixed = commandManager.estimate(query, limit * PREFIX_CANDIDATES_PER_SLOT);
+        PriorityQueue<Candidate> prefixBest = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        for (TerminalCommand command : prefixed) {
+            offer(prefixBest, limit, query, command);
+        }
+        List<String> completions = new ArrayList<>(limit);
+        addRanked(completions, prefixBest);
+
+        int remaining = limit - completions.size();
+        if (remaining > 0) {
+            long deadline = System.nanoTime() + budget;
+            PriorityQueue<Candidate> fuzzyBest = new PriorityQueue<>(remaining + 1, WORST_FIRST);
+            Set<TerminalCommand> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            seen.addAll(prefixed);
+            int[] visited = {0};
+            commandManager.visitCommands(command -> {
+                if (!seen.contains(command)) {
+                    offer(fuzzyBest, remaining, query, command);
+                }
+                return ++visited[0] % DEADLINE_CHECK_INTERVAL != 0 || System.nanoTime() < deadline;
+            });
+            addRanked(completions, fuzzyBest);
+        }
+        return completions;
+    }
+
+    private static void addRanked(List<String> completions, PriorityQueue<Candidate> best) {
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(WORST_FIRST.reversed());
+        for (Candidate candidate : ranked) {
+            completions.add(candidate.command.toString());
+        }
+    }
+
+    private void offer(PriorityQueue<Candidate> best, int limit, String query, TerminalCommand command) {
+        int score = FuzzyMatcher.score(query, command.getName());
+        if (score == FuzzyMatcher.NO_MATCH) {
+            return;
+        }
+        Candidate candidate = new Candidate(command, score + usageStats.bonus(command.getName()));
+        if (best.size() < limit) {
+            best.add(candidate);
+        } else if (WORST_FIRST.compare(candidate, best.peek()) > 0) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package simple.terminal.completion;
+
+/**
+ * Scores a candidate by matching the query as a case insensitive subsequence. Consecutive characters,
+ * word starts and exact prefixes score higher, long candidates slightly lower.
+ */
+public final class FuzzyMatcher {
+    public static final int NO_MATCH = Integer.MIN_VALUE;
+
+    private static final int MATCH = 1;
+    private static final int CONSECUTIVE = 4;
+    private static final int WORD_START = 6;
+    private static final int PREFIX = 20;
+
+    private FuzzyMatcher() {
+    }
+
+    public static int score(String query, String candidate) {
+        if (query.isEmpty()) {
+            return 0;
+        }
+
+        int score = 0;
+        int queryIndex = 0;
+        int previous = -2;
+        for (int i = 0; i < candidate.length() && queryIndex < query.length(); i++) {
+            char c = candidate.charAt(i);
+            if (Character.toLowerCase(c) == Character.toLowerCase(query.charAt(queryIndex))) {
+                score += MATCH;
+                if (i == previous + 1) {
+                    score += CONSECUTIVE;
+                }
+                if (i == 0 || isSeparator(candidate.charAt(i - 1))) {
+                    score += WORD_START;
+                }
+                previous = i;
+                queryIndex++;
+            }
+        }
+        if (queryIndex < query.length()) {
+            return NO_MATCH;
+        }
+        if (candidate.startsWith(query)) {
+            score += PREFIX;
+        }
+        return score - (candidate.length() - query.length()) / 4;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '-' || c == '_' || c == '.' || c == '/' || c == ' ';
+    }
+}
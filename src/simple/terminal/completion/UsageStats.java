@@ -0,0 +1,39 @@
+package simple.terminal.completion;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often and how recently each command name was used, as a ranking bonus for completions.
+ */
+public class UsageStats {
+    private static final int FREQUENCY_WEIGHT = 4;
+    private static final int RECENCY_BONUS = 16;
+    private static final int RECENCY_DECAY = 4;
+
+    private static final class Usage {
+        private volatile int count;
+        private volatile long lastUse;
+    }
+
+    private final ConcurrentHashMap<String, Usage> usages = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    public void record(String commandName) {
+        Usage usage = usages.computeIfAbsent(commandName, name -> new Usage());
+        synchronized (usage) {
+            usage.count++;
+            usage.lastUse = clock.incrementAndGet();
+        }
+    }
+
+    public int bonus(String commandName) {
+        Usage usage = usages.get(commandName);
+        if (usage == null) {
+            return 0;
+        }
+        int frequency = FREQUENCY_WEIGHT * (32 - Integer.numberOfLeadingZeros(usage.count));
+        long age = (clock.get() - usage.lastUse) / RECENCY_DECAY;
+        return frequency + (int) Math.max(0, RECENCY_BONUS - age);
+    }
+}
@@ -0,0 +1,298 @@
+package simple.terminal.filesystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Caches folder metadata and small folder listings, keyed by the normalized absolute path. The cache keeps
+ * at most {@code maxEntries} folders in LRU order and watches every cached folder and its parent with a
+ * {@link WatchService}, so entries are dropped as soon as the file system reports a change. Paths whose parent
+ * cannot be watched are not cached, as nothing would tell when they are created or removed.
+ */
+public class DirectoryCache implements Closeable {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    public static final int DEFAULT_MAX_LISTING_SIZE = 10000;
+
+    public static final class FileEntry {
+        private final String name;
+        private final char type;
+        private final long size;
+        private final long modified;
+
+        private FileEntry(String name, BasicFileAttributes attributes) {
+            this.name = name;
+            this.type = attributes.isDirectory() ? 'd' : attributes.isSymbolicLink() ? 'l' : '-';
+            this.size = attributes.size();
+            this.modified = attributes.lastModifiedTime().toMillis();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public char getType() {
+            return type;
+        }
+
+        public boolean isDirectory() {
+            return type == 'd';
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getModified() {
+            return modified;
+        }
+    }
+
+    private static final class Folder {
+        private final boolean directory;
+        private final boolean readable;
+        private List<FileEntry> listing;
+        private boolean listingTooLarge = false;
+        private boolean watchesFolder = false;
+        private boolean watchesParent = false;
+
+        private Folder(boolean directory, boolean readable) {
+            this.directory = directory;
+            this.readable = readable;
+        }
+    }
+
+    private final int maxListingSize;
+    private final LinkedHashMap<Path, Folder> entries;
+    private final Map<Path, WatchKey> watchKeys = new HashMap<>();
+    private final Map<Path, Integer> watchReferences = new HashMap<>();
+    private final WatchService watchService;
+    private long modifications = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    public DirectoryCache() throws IOException {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_LISTING_SIZE);
+    }
+
+    public DirectoryCache(int maxEntries, int maxListingSize) throws IOException {
+        this.maxListingSize = maxListingSize;
+        this.entries = new LinkedHashMap<Path, Folder>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Folder> eldest) {
+                if (size() > maxEntries) {
+                    release(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        Thread watcher = new Thread(this::processEvents, "directory-cache-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public static Path key(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    public boolean isReadableDirectory(Path path) {
+        Folder entry = entry(key(path), true);
+        return entry.directory && entry.readable;
+    }
+
+    /**
+     * Returns the folder entries, or null when the folder has more than {@code maxListingSize} entries
+     * and needs to be streamed instead.
+     */
+    public List<FileEntry> getListing(Path path) throws IOException {
+        Path folder = key(path);
+        Folder entry = entry(folder, false);
+        long generation;
+        synchronized (this) {
+            if (entry.listing != null || entry.listingTooLarge) {
+                hits++;
+                return entry.listing;
+            }
+            misses++;
+            generation = modifications;
+        }
+
+        List<FileEntry> listing = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path child : stream) {
+                if (listing.size() == maxListingSize) {
+                    listing = null;
+                    break;
+                }
+                listing.add(new FileEntry(child.getFileName().toString(),
+                        Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)));
+            }
+        }
+
+        synchronized (this) {
+            if (generation == modifications && entries.get(folder) == entry) {
+                entry.listing = listing == null ? null : Collections.unmodifiableList(listing);
+                entry.listingTooLarge = listing == null;
+            }
+        }
+        return listing;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void invalidate(Path path) {
+        Path folder = key(path);
+        Folder entry = entries.remove(folder);
+        if (entry != null) {
+            release(folder, entry);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * Returns the cached entry of the folder, loading it on a miss. Only {@code counted} lookups are counted as
+     * hits or misses, so that {@link #getListing} counts its listing instead.
+     */
+    private Folder entry(Path folder, boolean counted) {
+        long generation;
+        synchronized (this) {
+            Folder entry = entries.get(folder);
+            if (counted && entry != null) {
+                hits++;
+            } else if (counted) {
+                misses++;
+            }
+            if (entry != null) {
+                return entry;
+            }
+            generation = modifications;
+        }
+
+        Folder entry = new Folder(Files.isDirectory(folder), Files.isReadable(folder));
+        synchronized (this) {
+            Folder existing = entries.get(folder);
+            if (existing != null) {
+                return existing;
+            }
+            if (generation == modifications) {
+                Path parent = folder.getParent();
+                entry.watchesFolder = entry.directory && watch(folder);
+                entry.watchesParent = parent != null && watch(parent);
+                if (parent == null ? entry.watchesFolder : entry.watchesParent) {
+                    entries.put(folder, entry);
+                } else {
+                    release(folder, entry);
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Takes a reference on the watch of the folder, registering it first if needed. Returns false, without
+     * taking a reference, if the folder cannot be watched.
+     */
+    private boolean watch(Path folder) {
+        Integer references = watchReferences.get(folder);
+        if (references == null) {
+            try {
+                watchKeys.put(folder, folder.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+            } catch (IOException | ClosedWatchServiceException e) {
+                return false;
+            }
+            references = 0;
+        }
+        watchReferences.put(folder, references + 1);
+        return true;
+    }
+
+    private void unwatch(Path folder) {
+        Integer references = watchReferences.get(folder);
+        if (references == null) {
+            return;
+        }
+        if (references > 1) {
+            watchReferences.put(folder, references - 1);
+        } else {
+            watchReferences.remove(folder);
+            watchKeys.remove(folder).cancel();
+        }
+    }
+
+    private void release(Path folder, Folder entry) {
+        if (entry.watchesFolder) {
+            unwatch(folder);
+        }
+        if (entry.watchesParent) {
+            unwatch(folder.getParent());
+        }
+        entry.watchesFolder = false;
+        entry.watchesParent = false;
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path folder = (Path) key.watchable();
+            List<WatchEvent<?>> events = key.pollEvents();
+            synchronized (this) {
+                modifications++;
+                Folder entry = entries.get(folder);
+                if (entry != null) {
+                    entry.listing = null;
+                    entry.listingTooLarge = false;
+                }
+                for (WatchEvent<?> event : events) {
+                    if (event.kind() == OVERFLOW) {
+                        invalidateChildren(folder);
+                    } else {
+                        Path child = folder.resolve((Path) event.context());
+                        Folder removed = entries.remove(child);
+                        if (removed != null) {
+                            release(child, removed);
+                        }
+                    }
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private void invalidateChildren(Path folder) {
+        Iterator<Map.Entry<Path, Folder>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Folder> entry = iterator.next();
+            if (folder.equals(entry.getKey().getParent())) {
+                iterator.remove();
+                release(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
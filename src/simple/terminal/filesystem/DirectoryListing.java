@@ -0,0 +1,233 @@
+package simple.terminal.filesystem;
+
+import simple.terminal.TerminalLogger;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Streams the entries of a folder to a {@link TerminalLogger} in batches, as they are read from a
+ * {@link DirectoryStream}. Sorted listings are sorted in memory up to {@link #SORT_RUN_SIZE} entries;
+ * larger folders are sorted in runs spilled to temporary files and merged. Folders small enough to be
+ * held by a {@link DirectoryCache} are listed from memory.
+ */
+public class DirectoryListing {
+    public static final int BATCH_SIZE = 256;
+    public static final int SORT_RUN_SIZE = 100000;
+
+    private static final Comparator<String[]> BY_NAME = (first, second) -> first[0].compareTo(second[0]);
+
+    private final DirectoryCache cache;
+    private boolean sorted = false;
+    private boolean attributes = false;
+    private long limit = Long.MAX_VALUE;
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+    private String source;
+    private TerminalLogger logger;
+    private List<String> batch;
+    private long emitted;
+
+    public DirectoryListing() {
+        this(null);
+    }
+
+    public DirectoryListing(DirectoryCache cache) {
+        this.cache = cache;
+    }
+
+    public void setSorted(boolean sorted) {
+        this.sorted = sorted;
+    }
+
+    public void setAttributes(boolean attributes) {
+        this.attributes = attributes;
+    }
+
+    public void setLimit(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns false when the listing was interrupted before all the entries were written.
+     */
+    public boolean list(Path folder, String source, TerminalLogger logger) throws IOException {
+        this.source = source;
+        this.logger = logger;
+        this.batch = new ArrayList<>(BATCH_SIZE);
+        this.emitted = 0;
+
+        List<DirectoryCache.FileEntry> cached = cache == null ? null : cache.getListing(folder);
+        if (cached != null) {
+            boolean complete = listCached(cached);
+            flush();
+            return complete;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            boolean complete = sorted ? listSorted(stream) : listUnsorted(stream);
+            flush();
+            return complete;
+        }
+    }
+
+    private boolean listCached(List<DirectoryCache.FileEntry> entries) {
+        if (sorted) {
+            entries = new ArrayList<>(entries);
+            entries.sort((first, second) -> first.getName().compareTo(second.getName()));
+        }
+        for (DirectoryCache.FileEntry entry : entries) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            String line = attributes ? format(entry.getType(), entry.getSize(), entry.getModified(), entry.getName()) : entry.getName();
+            if (!emit(line)) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    private boolean listUnsorted(DirectoryStream<Path> stream) throws IOException {
+        for (Path path : stream) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            if (!emit(format(path))) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    private boolean listSorted(DirectoryStream<Path> stream) throws IOException {
+        List<String[]> run = new ArrayList<>();
+        List<Path> runFiles = new ArrayList<>();
+        try {
+            for (Path path : stream) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                run.add(new String[]{path.getFileName().toString(), format(path)});
+                if (run.size() == SORT_RUN_SIZE) {
+                    runFiles.add(spill(run));
+                    run.clear();
+                }
+            }
+
+            run.sort(BY_NAME);
+            if (runFiles.isEmpty()) {
+                for (String[] entry : run) {
+                    if (!emit(entry[1])) {
+                        break;
+                    }
+                }
+                return true;
+            }
+            runFiles.add(spill(run));
+            run.clear();
+            return merge(runFiles);
+        } finally {
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+        }
+    }
+
+    private Path spill(List<String[]> run) throws IOException {
+        run.sort(BY_NAME);
+        Path runFile = Files.createTempFile("ls-run", ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(runFile)))) {
+            for (String[] entry : run) {
+                output.writeUTF(entry[0]);
+                output.writeUTF(entry[1]);
+            }
+        }
+        return runFile;
+    }
+
+    private static final class Run {
+        private final DataInputStream input;
+        private String[] current;
+
+        private Run(Path runFile) throws IOException {
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(runFile)));
+        }
+
+        private boolean advance() throws IOException {
+            try {
+                current = new String[]{input.readUTF(), input.readUTF()};
+                return true;
+            } catch (EOFException e) {
+                input.close();
+                return false;
+            }
+        }
+    }
+
+    private boolean merge(List<Path> runFiles) throws IOException {
+        PriorityQueue<Run> runs = new PriorityQueue<>(runFiles.size(), (first, second) -> BY_NAME.compare(first.current, second.current));
+        try {
+            for (Path runFile : runFiles) {
+                Run run = new Run(runFile);
+                if (run.advance()) {
+                    runs.add(run);
+                }
+            }
+            while (!runs.isEmpty()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                Run run = runs.poll();
+                if (!emit(run.current[1])) {
+                    runs.add(run);
+                    break;
+                }
+                if (run.advance()) {
+                    runs.add(run);
+                }
+            }
+            return true;
+        } finally {
+            for (Run run : runs) {
+                run.input.close();
+            }
+        }
+    }
+
+    private String format(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        if (!attributes) {
+            return name;
+        }
+        BasicFileAttributes fileAttributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        char type = fileAttributes.isDirectory() ? 'd' : fileAttributes.isSymbolicLink() ? 'l' : '-';
+        return format(type, fileAttributes.size(), fileAttributes.lastModifiedTime().toMillis(), name);
+    }
+
+    private String format(char type, long size, long modified, String name) {
+        return String.format("%c %12d %s %s", type, size, dateFormat.format(new Date(modified)), name);
+    }
+
+    private boolean emit(String line) {
+        if (emitted >= limit) {
+            return false;
+        }
+        batch.add(line);
+        emitted++;
+        if (batch.size() == BATCH_SIZE) {
+            flush();
+        }
+        return emitted < limit;
+    }
+
+    private void flush() {
+        if (!batch.isEmpty()) {
+            logger.log(source, batch);
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+    }
+}
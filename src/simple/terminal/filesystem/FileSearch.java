@@ -0,0 +1,357 @@
+package simple.terminal.filesystem;
+
+import simple.terminal.TerminalLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Searches folder trees in parallel on a work-stealing {@link ForkJoinPool}. Each folder is a task that forks
+ * a task per subfolder and per {@link #FILE_BATCH} files, so idle workers steal whatever is left of the tree.
+ * {@link #find} writes the paths whose name matches a glob; {@link #grep} reads every regular file in
+ * {@link #BUFFER_SIZE} chunks through a {@link FileChannel} and writes its matching lines, skipping files with
+ * a NUL byte in their first chunk. Matches are written as soon as a folder or file is done, in batches of at
+ * most {@link DirectoryListing#BATCH_SIZE}. Symbolic links are not followed.
+ */
+public class FileSearch {
+    public static final int FILE_BATCH = 64;
+    public static final int BUFFER_SIZE = 1 << 20;
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final int parallelism;
+    private PathMatcher nameMatcher;
+    private char type;
+    private LineMatcher lineMatcher;
+
+    private Path base;
+    private String source;
+    private TerminalLogger logger;
+    private volatile boolean cancelled;
+    private final AtomicLong unreadable = new AtomicLong();
+
+    public FileSearch(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Only finds the entries whose file name matches the {@code glob}.
+     */
+    public void setName(String glob) {
+        this.nameMatcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    }
+
+    /**
+     * Only finds regular files for {@code 'f'} and folders for {@code 'd'}.
+     */
+    public void setType(char type) {
+        this.type = type;
+    }
+
+    /**
+     * Writes the paths under {@code roots} matching the name and type, relative to {@code base} when they are
+     * inside it. Returns false when the search was interrupted.
+     */
+    public boolean find(List<Path> roots, Path base, String source, TerminalLogger logger) {
+        this.lineMatcher = null;
+        return search(roots, base, source, logger);
+    }
+
+    /**
+     * Writes the lines matching {@code lineMatcher} in the files under {@code roots}, as {@code path:line:text}.
+     * Returns false when the search was interrupted.
+     */
+    public boolean grep(List<Path> roots, LineMatcher lineMatcher, Path base, String source, TerminalLogger logger) {
+        this.lineMatcher = lineMatcher;
+        return search(roots, base, source, logger);
+    }
+
+    private boolean search(List<Path> roots, Path base, String source, TerminalLogger logger) {
+        this.base = base;
+        this.source = source;
+        this.logger = logger;
+        this.cancelled = false;
+        this.unreadable.set(0);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(new Roots(roots)).get();
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            cancelled = true;
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        if (unreadable.get() > 0) {
+            logger.log(source, unreadable.get() + " path(s) could not be read");
+        }
+        return true;
+    }
+
+    private String display(Path path) {
+        return path.startsWith(base) && !path.equals(base) ? base.relativize(path).toString() : path.toString();
+    }
+
+    private boolean matches(Path path, BasicFileAttributes attributes) {
+        return (type == 0 || (type == 'd' ? attributes.isDirectory() : attributes.isRegularFile()))
+                && (nameMatcher == null || nameMatcher.matches(path.getFileName()));
+    }
+
+    private abstract class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private List<String> lines = new ArrayList<>();
+
+        void add(String line) {
+            lines.add(line);
+            if (lines.size() == DirectoryListing.BATCH_SIZE) {
+                emit();
+            }
+        }
+
+        /**
+         * Writes the lines collected so far. Workers write one batch at a time, so the lines of a batch stay
+         * together.
+         */
+        void emit() {
+            if (lines.isEmpty()) {
+                return;
+            }
+            synchronized (FileSearch.this) {
+                if (!cancelled) {
+                    try {
+                        logger.log(source, lines);
+                    } catch (RuntimeException e) {
+                        cancelled = true;
+                        throw e;
+                    }
+                }
+            }
+            lines = new ArrayList<>();
+        }
+
+        void visit(Path path, BasicFileAttributes attributes, List<ForkJoinTask<?>> forked) {
+            if (lineMatcher == null && matches(path, attributes)) {
+                add(display(path));
+            }
+            if (attributes.isDirectory()) {
+                forked.add(new Walk(path).fork());
+            }
+        }
+
+        void scan(Path file) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                scan(file, channel);
+            } catch (IOException e) {
+                unreadable.incrementAndGet();
+            }
+            emit();
+        }
+
+        /**
+         * Reads the file in chunks ending at a line break and searches each chunk for matches; the incomplete
+         * last line of a chunk is moved to the start of the buffer. Lines longer than the buffer are split.
+         */
+        private void scan(Path file, FileChannel channel) throws IOException {
+            byte[] buffer = BUFFERS.get();
+            ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+            String name = null;
+            long lineNumber = 1;
+            int length = 0;
+            boolean first = true;
+            boolean end = false;
+            while (!end && !cancelled) {
+                wrapper.clear().position(length);
+                int read = channel.read(wrapper);
+                end = read < 0;
+                length += Math.max(0, read);
+                if (first && !end) {
+                    first = false;
+                    for (int i = 0; i < length; i++) {
+                        if (buffer[i] == 0) {
+                            return;
+                        }
+                    }
+                }
+                int limit = end ? length : lastLineEnd(buffer, length);
+                if (limit == 0 && length == buffer.length) {
+                    limit = length;
+                } else if (limit == 0) {
+                    continue;
+                }
+
+                int counted = 0;
+                for (int position = 0; position < limit; ) {
+                    int match = lineMatcher.find(buffer, position, limit);
+                    if (match < 0) {
+                        break;
+                    }
+                    int start = match;
+                    while (start > position && buffer[start - 1] != '\n') {
+                        start--;
+                    }
+                    int stop = match;
+                    while (stop < limit && buffer[stop] != '\n') {
+                        stop++;
+                    }
+                    lineNumber += count(buffer, counted, start);
+                    counted = start;
+                    int text = stop > start && buffer[stop - 1] == '\r' ? stop - 1 : stop;
+                    if (name == null) {
+                        name = display(file);
+                    }
+                    add(name + ":" + lineNumber + ":" + new String(buffer, start, text - start, StandardCharsets.UTF_8));
+                    position = stop + 1;
+                }
+                lineNumber += count(buffer, counted, limit);
+                System.arraycopy(buffer, limit, buffer, 0, length - limit);
+                length -= limit;
+            }
+        }
+    }
+
+    private static int lastLineEnd(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int count(byte[] buffer, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private final class Roots extends SearchTask {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> roots;
+
+        private Roots(List<Path> roots) {
+            this.roots = roots;
+        }
+
+        @Override
+        protected void compute() {
+            List<ForkJoinTask<?>> forked = new ArrayList<>();
+            for (Path root : roots) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(root, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    unreadable.incrementAndGet();
+                    continue;
+                }
+                if (lineMatcher == null && !root.equals(base)) {
+                    visit(root, attributes, forked);
+                } else if (attributes.isDirectory()) {
+                    forked.add(new Walk(root).fork());
+                } else if (attributes.isRegularFile()) {
+                    scan(root);
+                }
+            }
+            emit();
+            forked.forEach(ForkJoinTask::join);
+        }
+    }
+
+    private final class Walk extends SearchTask {
+        private static final long serialVersionUID = 1L;
+
+        private final Path folder;
+
+        private Walk(Path folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        protected void compute() {
+            List<ForkJoinTask<?>> forked = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                for (Path path : stream) {
+                    if (cancelled) {
+                        break;
+                    }
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        unreadable.incrementAndGet();
+                        continue;
+                    }
+                    visit(path, attributes, forked);
+                    if (lineMatcher != null && attributes.isRegularFile()) {
+                        files.add(path);
+                        if (files.size() == FILE_BATCH) {
+                            forked.add(new Scan(files).fork());
+                            files = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                unreadable.incrementAndGet();
+            }
+            emit();
+            for (Path file : files) {
+                if (cancelled) {
+                    break;
+                }
+                scan(file);
+            }
+            forked.forEach(ForkJoinTask::join);
+        }
+    }
+
+    private final class Scan extends SearchTask {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+
+        private Scan(List<Path> files) {
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                if (cancelled) {
+                    break;
+                }
+                scan(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package simple.terminal.filesystem;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Matches lines against a fixed string or a regular expression, either as strings or directly in the UTF-8
+ * bytes of a file. Fixed strings are searched in the bytes with Boyer-Moore-Horspool, folding ASCII letters
+ * when the case is ignored, so files are only decoded for the matching lines. Regular expressions, and fixed
+ * strings with non ASCII letters searched without case, are matched line by line on the decoded text.
+ */
+public class LineMatcher {
+    private final String text;
+    private final Pattern pattern;
+    private final byte[] needle;
+    private final byte[] fold = new byte[256];
+    private final int[] skip = new int[256];
+
+    public LineMatcher(String text, boolean regex, boolean ignoreCase) {
+        this.text = text;
+        boolean ascii = text.chars().allMatch(c -> c < 0x80);
+        if (regex || (ignoreCase && !ascii)) {
+            int flags = (regex ? 0 : Pattern.LITERAL) | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+            this.pattern = Pattern.compile(text, flags);
+            this.needle = null;
+            return;
+        }
+        this.pattern = ignoreCase ? Pattern.compile(text, Pattern.LITERAL | Pattern.CASE_INSENSITIVE) : null;
+        for (int b = 0; b < 256; b++) {
+            fold[b] = (byte) (ignoreCase && b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        this.needle = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            needle[i] = fold[bytes[i] & 0xff];
+        }
+        Arrays.fill(skip, Math.max(1, needle.length));
+        for (int i = 0; i < needle.length - 1; i++) {
+            skip[needle[i] & 0xff] = needle.length - 1 - i;
+        }
+    }
+
+    public boolean matches(String line) {
+        return pattern == null ? line.contains(text) : pattern.matcher(line).find();
+    }
+
+    /**
+     * Returns the position of a match in {@code bytes} between {@code from} and {@code to}, or -1 if there is
+     * none. {@code from} must be the start of a line; for regular expressions the start of the first matching
+     * line is returned.
+     */
+    public int find(byte[] bytes, int from, int to) {
+        if (needle == null) {
+            return findLine(bytes, from, to);
+        }
+        int last = needle.length - 1;
+        if (last < 0) {
+            return from < to ? from : -1;
+        }
+        for (int i = from; i + last < to; i += skip[fold[bytes[i + last] & 0xff] & 0xff]) {
+            int j = last;
+            while (fold[bytes[i + j] & 0xff] == needle[j]) {
+                if (j-- == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int findLine(byte[] bytes, int from, int to) {
+        for (int start = from; start < to; ) {
+            int end = start;
+            while (end < to && bytes[end] != '\n') {
+                end++;
+            }
+            if (pattern.matcher(new String(bytes, start, end - start, StandardCharsets.UTF_8)).find()) {
+                return start;
+            }
+            start = end + 1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,240 @@
+package simple.terminal.logging;
+
+import simple.terminal.TerminalLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link TerminalLogger} that hands entries to a single logger thread through a lock-free bounded ring buffer,
+ * so logging never waits for the sinks. Producers claim slots with a CAS on the tail and publish them
+ * through a per-slot sequence number; the logger thread drains up to {@code batchSize} entries at a time and
+ * passes them to every {@link LogSink}. When the buffer is full, producers either wait for free slots or drop
+ * the entry; dropped entries are counted and reported to the sinks as a single message. A sink that fails to
+ * write or flush is closed and removed, and the failure is reported once to the remaining sinks.
+ */
+public class AsyncLogger implements TerminalLogger, Closeable {
+    public enum OverflowPolicy {
+        BLOCK, DROP
+    }
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final String SOURCE = "logger";
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int IDLE_SPINS = 100;
+
+    private final LogEntry[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head = 0;
+    private volatile long written = 0;
+
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final List<LogSink> sinks = new CopyOnWriteArrayList<>();
+    private final AtomicLong pendingDrops = new AtomicLong();
+    private final ConcurrentLinkedQueue<LogEntry> pendingErrors = new ConcurrentLinkedQueue<>();
+    private final Thread consumer;
+    private volatile boolean waiting = false;
+    private volatile boolean closed = false;
+
+    public AsyncLogger(OverflowPolicy overflowPolicy) {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, overflowPolicy);
+    }
+
+    public AsyncLogger(int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.entries = new LogEntry[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+
+        consumer = new Thread(this::consume, "terminal-logger");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public AsyncLogger addSink(LogSink sink) {
+        sinks.add(sink);
+        return this;
+    }
+
+    @Override
+    public void log(String source, String message) {
+        publish(new LogEntry(source, message));
+    }
+
+    @Override
+    public void log(String source, List<String> messages) {
+        for (String message : messages) {
+            publish(new LogEntry(source, message));
+        }
+    }
+
+    private void publish(LogEntry entry) {
+        if (closed) {
+            drop();
+            return;
+        }
+        while (!offer(entry)) {
+            if (overflowPolicy == OverflowPolicy.DROP || closed || Thread.currentThread().isInterrupted()) {
+                drop();
+                return;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        if (waiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private boolean offer(LogEntry entry) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries[index] = entry;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private LogEntry poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        LogEntry entry = entries[index];
+        entries[index] = null;
+        sequences.lazySet(index, head + entries.length);
+        head++;
+        return entry;
+    }
+
+    private void drop() {
+        pendingDrops.incrementAndGet();
+    }
+
+    private void fail(LogSink sink, IOException e) {
+        if (!sinks.remove(sink)) {
+            return;
+        }
+        try {
+            sink.close();
+        } catch (IOException closeError) {
+            e.addSuppressed(closeError);
+        }
+        pendingErrors.add(new LogEntry(SOURCE, "Output is no longer written to " + sink.getClass().getSimpleName() + ": " + e.getMessage()));
+    }
+
+    private void consume() {
+        List<LogEntry> batch = new ArrayList<>(batchSize);
+        int idle = 0;
+        while (true) {
+            LogEntry entry;
+            while ((entry = pendingErrors.poll()) != null) {
+                batch.add(entry);
+            }
+            while (batch.size() < batchSize && (entry = poll()) != null) {
+                batch.add(entry);
+            }
+            long drops = pendingDrops.getAndSet(0);
+            if (drops > 0) {
+                batch.add(new LogEntry(SOURCE, drops + " messages dropped"));
+            }
+
+            if (!batch.isEmpty()) {
+                for (LogSink sink : sinks) {
+                    try {
+                        sink.write(batch);
+                    } catch (IOException e) {
+                        fail(sink, e);
+                    }
+                }
+                batch.clear();
+                written = head;
+                idle = 0;
+            } else if (closed && head == tail.get()) {
+                return;
+            } else if (idle < IDLE_SPINS) {
+                idle++;
+                Thread.yield();
+            } else {
+                if (idle == IDLE_SPINS) {
+                    idle++;
+                    flushSinks();
+                }
+                waiting = true;
+                if (sequences.get((int) (head & mask)) != head + 1 && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    private void flushSinks() {
+        for (LogSink sink : sinks) {
+            try {
+                sink.flush();
+            } catch (IOException e) {
+                fail(sink, e);
+            }
+        }
+    }
+
+    /**
+     * Waits until every entry logged before this call reached the sinks, then flushes them.
+     */
+    public void flush() {
+        long target = tail.get();
+        while (written < target && consumer.isAlive()) {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+        flushSinks();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (LogSink sink : sinks) {
+            sink.close();
+        }
+    }
+}
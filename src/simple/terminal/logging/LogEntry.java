@@ -0,0 +1,32 @@
+package simple.terminal.logging;
+
+public final class LogEntry {
+    private final String source;
+    private final String message;
+    private final long time = System.nanoTime();
+
+    public LogEntry(String source, String message) {
+        this.source = source;
+        this.message = message;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the entry was logged.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        return source + ": " + message;
+    }
+}
@@ -0,0 +1,19 @@
+package simple.terminal.logging;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the entries written through an {@link AsyncLogger}. Sinks are called from the single
+ * logger thread, with entries in the order they were logged.
+ */
+public interface LogSink {
+    void write(List<LogEntry> entries) throws IOException;
+
+    default void flush() throws IOException {
+    }
+
+    default void close() throws IOException {
+        flush();
+    }
+}
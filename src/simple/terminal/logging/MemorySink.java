@@ -0,0 +1,39 @@
+package simple.terminal.logging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last {@code capacity} entries in memory, to inspect the output of commands.
+ */
+public class MemorySink implements LogSink {
+    private final int capacity;
+    private final ArrayDeque<LogEntry> entries;
+
+    public MemorySink(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The memory sink capacity needs to be positive!");
+        }
+        this.capacity = capacity;
+        this.entries = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    @Override
+    public synchronized void write(List<LogEntry> batch) {
+        for (LogEntry entry : batch) {
+            if (entries.size() == capacity) {
+                entries.pollFirst();
+            }
+            entries.addLast(entry);
+        }
+    }
+
+    public synchronized List<LogEntry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
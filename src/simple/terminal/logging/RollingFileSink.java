@@ -0,0 +1,106 @@
+package simple.terminal.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends entries to a file, one per line. When the file grows past {@code maxBytes} it is renamed to
+ * {@code file.1}, older files are shifted up to {@code file.<maxFiles>} and the oldest one is deleted.
+ */
+public class RollingFileSink implements LogSink {
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private Writer writer;
+    private long size;
+
+    public RollingFileSink(Path file, long maxBytes, int maxFiles) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        open();
+    }
+
+    private void open() throws IOException {
+        size = Files.exists(file) ? Files.size(file) : 0;
+        writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND), StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE)), 1 << 16);
+    }
+
+    @Override
+    public synchronized void write(List<LogEntry> entries) throws IOException {
+        for (LogEntry entry : entries) {
+            String line = entry.toString();
+            writer.write(line);
+            writer.write('\n');
+            size += utf8Length(line) + 1;
+            if (size >= maxBytes) {
+                roll();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes the line takes in UTF-8, without encoding it. Unpaired surrogates are
+     * written as a one byte replacement.
+     */
+    static long utf8Length(String line) {
+        long length = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < line.length() && Character.isLowSurrogate(line.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        Files.deleteIfExists(rolled(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            if (Files.exists(rolled(i))) {
+                Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
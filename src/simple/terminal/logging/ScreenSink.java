@@ -0,0 +1,34 @@
+package simple.terminal.logging;
+
+import simple.terminal.TerminalLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwards entries to a {@link TerminalLogger}, passing consecutive entries of the same source as one batch.
+ */
+public class ScreenSink implements LogSink {
+    private final TerminalLogger terminalLogger;
+
+    public ScreenSink(TerminalLogger terminalLogger) {
+        this.terminalLogger = terminalLogger;
+    }
+
+    @Override
+    public void write(List<LogEntry> entries) {
+        List<String> messages = new ArrayList<>(entries.size());
+        String source = null;
+        for (LogEntry entry : entries) {
+            if (!entry.getSource().equals(source) && !messages.isEmpty()) {
+                terminalLogger.log(source, messages);
+                messages = new ArrayList<>(entries.size());
+            }
+            source = entry.getSource();
+            messages.add(entry.getMessage());
+        }
+        if (!messages.isEmpty()) {
+            terminalLogger.log(source, messages);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package simple.terminal.recording;
+
+import com.googlecode.lanterna.input.KeyStroke;
+import simple.terminal.logging.LogEntry;
+
+/**
+ * Event read back from a recording: a key, with the paste markers as {@link simple.terminal.BracketedPaste}
+ * keys, or an output entry.
+ */
+public final class RecordedEvent {
+    private final long time;
+    private final KeyStroke key;
+    private final LogEntry output;
+
+    RecordedEvent(long time, KeyStroke key, LogEntry output) {
+        this.time = time;
+        this.key = key;
+        this.output = output;
+    }
+
+    /**
+     * Returns the time of the event in microseconds since the recording started.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public boolean isKey() {
+        return key != null;
+    }
+
+    public KeyStroke getKey() {
+        return key;
+    }
+
+    public LogEntry getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,154 @@
+package simple.terminal.recording;
+
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import simple.terminal.BracketedPaste;
+import simple.terminal.logging.LogEntry;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the events of a file written by {@link SessionRecorder}, in order. Events of unknown types are skipped
+ * and a recording cut short, for example by a crash, ends at its last complete event.
+ */
+public class RecordingReader implements Closeable {
+    private static final KeyType[] KEY_TYPES = KeyType.values();
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(SessionRecorder.BUFFER_SIZE);
+    private final int columns;
+    private final int rows;
+    private long time = 0;
+    private boolean end = false;
+
+    public RecordingReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.flip();
+        try {
+            if (!fill(9) || buffer.getInt() != SessionRecorder.MAGIC) {
+                throw new IOException(file + " is not a session recording");
+            }
+            if (buffer.get() != SessionRecorder.VERSION) {
+                throw new IOException(file + " was recorded by an unsupported version");
+            }
+            columns = buffer.getShort();
+            rows = buffer.getShort();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the next event, or null at the end of the recording.
+     */
+    public RecordedEvent next() throws IOException {
+        while (fill(1)) {
+            long length;
+            try {
+                length = getVarint();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (length > Integer.MAX_VALUE || !fill((int) length)) {
+                return null;
+            }
+            int eventEnd = buffer.position() + (int) length;
+            byte type = buffer.get();
+            time += getVarint();
+            RecordedEvent event = null;
+            switch (type) {
+                case SessionRecorder.KEY:
+                    event = new RecordedEvent(time, readKey(), null);
+                    break;
+                case SessionRecorder.OUTPUT:
+                    int sourceLength = (int) getVarint();
+                    String source = getString(sourceLength);
+                    event = new RecordedEvent(time, null, new LogEntry(source, getString(eventEnd - buffer.position())));
+                    break;
+                case SessionRecorder.PASTE_START:
+                    event = new RecordedEvent(time, BracketedPaste.START, null);
+                    break;
+                case SessionRecorder.PASTE_END:
+                    event = new RecordedEvent(time, BracketedPaste.END, null);
+                    break;
+            }
+            buffer.position(eventEnd);
+            if (event != null) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private KeyStroke readKey() throws IOException {
+        KeyType type = KEY_TYPES[buffer.get()];
+        int flags = buffer.get();
+        boolean ctrl = (flags & SessionRecorder.CTRL) != 0;
+        boolean alt = (flags & SessionRecorder.ALT) != 0;
+        return type == KeyType.Character ? new KeyStroke((char) getVarint(), ctrl, alt) : new KeyStroke(type, ctrl, alt);
+    }
+
+    private String getString(int length) {
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private long getVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!fill(1)) {
+                throw new EOFException("Truncated recording");
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed recording");
+    }
+
+    /**
+     * Reads from the channel until {@code count} bytes are buffered, growing the buffer for large events.
+     * Returns false if the file ends first.
+     */
+    private boolean fill(int count) throws IOException {
+        if (buffer.remaining() >= count) {
+            return true;
+        }
+        if (count > buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(count, buffer.capacity() * 2));
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (!end && buffer.position() < count) {
+            end = channel.read(buffer) < 0;
+        }
+        buffer.flip();
+        return buffer.remaining() >= count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,174 @@
+package simple.terminal.recording;
+
+import com.googlecode.lanterna.input.KeyStroke;
+import simple.terminal.BracketedPaste;
+import simple.terminal.logging.LogEntry;
+import simple.terminal.logging.LogSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Records the keys a terminal receives and the output of its commands to a binary file, which
+ * {@link SessionReplay} plays back. The file starts with {@link #MAGIC}, a version byte and the screen size in
+ * columns and rows; each event follows as a varint length, a type byte, a varint delay in microseconds since
+ * the previous event and its payload:
+ * <ul>
+ * <li>{@link #KEY}: key type ordinal, modifier flags and, for characters, the character as a varint;</li>
+ * <li>{@link #OUTPUT}: varint length of the UTF-8 source, the source, then the UTF-8 message;</li>
+ * <li>{@link #PASTE_START} and {@link #PASTE_END}: no payload.</li>
+ * </ul>
+ * Output is stamped with the time it was logged, not the time the logger thread wrote it; an event stamped
+ * before the previous one gets no delay. Only command output is recorded: the prompt echo, completions and
+ * warnings the terminal prints itself follow from the keys and are printed again when they are replayed.
+ * Events are encoded in a buffer and written to the channel when it fills up or the output is flushed.
+ */
+public class SessionRecorder implements LogSink, Closeable {
+    public static final int MAGIC = 0x53545243;
+    public static final byte VERSION = 1;
+    public static final byte KEY = 1;
+    public static final byte OUTPUT = 2;
+    public static final byte PASTE_START = 3;
+    public static final byte PASTE_END = 4;
+    public static final int CTRL = 1;
+    public static final int ALT = 2;
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final long start = System.nanoTime();
+    private long lastEvent = 0;
+    private long events = 0;
+    private boolean closed = false;
+
+    public SessionRecorder(Path file, int columns, int rows) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).put(VERSION).putShort((short) columns).putShort((short) rows);
+    }
+
+    public synchronized long getEvents() {
+        return events;
+    }
+
+    public synchronized void key(KeyStroke key) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (key == BracketedPaste.START || key == BracketedPaste.END) {
+            long delay = delay(System.nanoTime());
+            startEvent(1 + varintSize(delay));
+            buffer.put(key == BracketedPaste.START ? PASTE_START : PASTE_END);
+            putVarint(delay);
+            return;
+        }
+        Character character = key.getCharacter();
+        long delay = delay(System.nanoTime());
+        startEvent(3 + varintSize(delay) + (character == null ? 0 : varintSize(character)));
+        buffer.put(KEY);
+        putVarint(delay);
+        buffer.put((byte) key.getKeyType().ordinal());
+        buffer.put((byte) ((key.isCtrlDown() ? CTRL : 0) | (key.isAltDown() ? ALT : 0)));
+        if (character != null) {
+            putVarint(character);
+        }
+    }
+
+    @Override
+    public synchronized void write(List<LogEntry> entries) throws IOException {
+        if (closed) {
+            return;
+        }
+        for (LogEntry entry : entries) {
+            byte[] source = entry.getSource().getBytes(StandardCharsets.UTF_8);
+            byte[] message = entry.getMessage().getBytes(StandardCharsets.UTF_8);
+            long delay = delay(entry.getTime());
+            startEvent(1 + varintSize(delay) + varintSize(source.length) + source.length + message.length);
+            buffer.put(OUTPUT);
+            putVarint(delay);
+            putVarint(source.length);
+            put(source);
+            put(message);
+        }
+    }
+
+    private long delay(long nanoTime) {
+        long now = (nanoTime - start) / 1000;
+        long delay = Math.max(0, now - lastEvent);
+        lastEvent += delay;
+        return delay;
+    }
+
+    /**
+     * Writes the length of the next event, draining the buffer first unless the start of the event fits.
+     */
+    private void startEvent(long length) throws IOException {
+        if (buffer.remaining() < varintSize(length) + Math.min(length, 32)) {
+            drain();
+        }
+        putVarint(length);
+        events++;
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7fL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        for (int offset = 0; offset < bytes.length; ) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int count = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, count);
+            offset += count;
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            drain();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package simple.terminal.recording;
+
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import simple.terminal.BasicTerminal;
+import simple.terminal.BracketedPaste;
+import simple.terminal.CommandExecutor;
+import simple.terminal.HeadlessTerminal;
+import simple.terminal.PredictionGenerator;
+import simple.terminal.Session;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays the keys of a recording back into a {@link BasicTerminal} on a {@link HeadlessTerminal} of the recorded
+ * size, with a fresh session in the current directory and an empty history. Keys are sent either at the
+ * recorded pace or as fast as the terminal takes them; in both cases a command line is only submitted once the
+ * previous command finished, as it was when recording, so the replay runs the same commands either way.
+ */
+public class SessionReplay {
+    private static final long JOB_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    public static final class Result {
+        private final long keys;
+        private final long output;
+        private final long recordedOutput;
+        private final long charactersWritten;
+        private final long nanos;
+
+        private Result(long keys, long output, long recordedOutput, long charactersWritten, long nanos) {
+            this.keys = keys;
+            this.output = output;
+            this.recordedOutput = recordedOutput;
+            this.charactersWritten = charactersWritten;
+            this.nanos = nanos;
+        }
+
+        public long getKeys() {
+            return keys;
+        }
+
+        /**
+         * Returns the number of output entries the commands logged during the replay.
+         */
+        public long getOutput() {
+            return output;
+        }
+
+        public long getRecordedOutput() {
+            return recordedOutput;
+        }
+
+        public long getCharactersWritten() {
+            return charactersWritten;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("%d keys in %.3f s (%.0f keys/s), %d output entries (%d recorded), %d characters drawn",
+                    keys, seconds, keys / seconds, output, recordedOutput, charactersWritten);
+        }
+    }
+
+    private final PredictionGenerator predictionGenerator;
+    private final CommandExecutor commandExecutor;
+
+    public SessionReplay(PredictionGenerator predictionGenerator, CommandExecutor commandExecutor) {
+        this.predictionGenerator = predictionGenerator;
+        this.commandExecutor = commandExecutor;
+    }
+
+    public Result replay(Path file, boolean recordedPace) throws IOException, InterruptedException {
+        try (RecordingReader reader = new RecordingReader(file)) {
+            HeadlessTerminal device = new HeadlessTerminal(reader.getColumns(), reader.getRows());
+            BasicTerminal terminal = new BasicTerminal(predictionGenerator, commandExecutor, device,
+                    new Session("replay", Paths.get("")), null);
+            AtomicLong output = new AtomicLong();
+            terminal.addOutputSink(entries -> output.addAndGet(entries.size()));
+
+            long keys = 0;
+            long recordedOutput = 0;
+            boolean pasting = false;
+            terminal.start();
+            long start = System.nanoTime();
+            try {
+                RecordedEvent event;
+                while (terminal.isRunning() && (event = reader.next()) != null) {
+                    if (!event.isKey()) {
+                        recordedOutput++;
+                        continue;
+                    }
+                    if (recordedPace) {
+                        long wait = start + TimeUnit.MICROSECONDS.toNanos(event.getTime()) - System.nanoTime();
+                        if (wait > 0) {
+                            TimeUnit.NANOSECONDS.sleep(wait);
+                        }
+                    }
+                    KeyStroke key = event.getKey();
+                    device.offerInput(key);
+                    keys++;
+                    pasting = key == BracketedPaste.START || (pasting && key != BracketedPaste.END);
+                    if (recordedPace || (!pasting && key.getKeyType() == KeyType.Enter)) {
+                        drain(terminal);
+                    }
+                }
+                drain(terminal);
+            } finally {
+                terminal.stop();
+            }
+            return new Result(keys, output.get(), recordedOutput, device.getCharactersWritten(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Handles the keys sent so far and waits for the command they started, if any.
+     */
+    private static void drain(BasicTerminal terminal) throws IOException, InterruptedException {
+        while (terminal.isRunning() && terminal.poll()) {
+            // a poll handles a batch of keys
+        }
+        while (terminal.isRunning() && terminal.hasForegroundJob()) {
+            LockSupport.parkNanos(JOB_WAIT_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
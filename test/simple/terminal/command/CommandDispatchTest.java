@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package simple.terminal.command;
+
+import org.junit.Before;
+import org.junit.Test;
+import simple.terminal.validation.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class CommandDispatchTest {
+    private final List<String> executed = new ArrayList<>();
+    private CommandManager commandManager;
+
+    @Before
+    public void setUp() {
+        commandManager = new CommandManager();
+    }
+
+    private TerminalCommand command(String name, String label, int arity) {
+        return new TerminalCommand(name, params -> executed.add(label), arity);
+    }
+
+    private TerminalCommand varargs(String name, String label) {
+        return new TerminalCommand(name, params -> executed.add(label), true);
+    }
+
+    private void execute(String name, String... arguments) {
+        commandManager.execute(name, new TerminalCommand.Params(arguments, (source, message) -> {
+        }));
+    }
+
+    private void assertFails(String message, String name, String... arguments) {
+        try {
+            execute(name, arguments);
+            fail("Expected " + message);
+        } catch (ValidationException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void exactNameIsPreferredOverLongerNames() {
+        commandManager.addCommand(command("l", "l", 0));
+        commandManager.addCommand(command("ls", "ls", 0));
+        commandManager.addCommand(command("lsof", "lsof", 0));
+
+        execute("ls");
+        execute("l");
+        assertEquals("[ls, l]", executed.toString());
+    }
+
+    @Test
+    public void prefixOfACommandIsNotFound() {
+        commandManager.addCommand(command("stats", "stats", 0));
+
+        assertFails("Command not found!", "st");
+        assertFails("Command not found!", "statsx");
+        assertEquals("[]", executed.toString());
+    }
+
+    @Test
+    public void unknownCommandIsNotFound() {
+        assertFails("Command not found!", "ls");
+        commandManager.addCommand(command("ls", "ls", 0));
+        commandManager.removeCommand(commandManager.getCommands("ls").get(0));
+        assertFails("Command not found!", "ls");
+    }
+
+    @Test
+    public void overloadIsChosenByArity() {
+        commandManager.addCommand(command("cd", "cd0", 0));
+        commandManager.addCommand(command("cd", "cd1", 1));
+        commandManager.addCommand(command("cd", "cd2", 2));
+
+        execute("cd", "a");
+        execute("cd");
+        execute("cd", "a", "b");
+        assertEquals("[cd1, cd0, cd2]", executed.toString());
+    }
+
+    @Test
+    public void fixedArityIsPreferredOverVarargs() {
+        commandManager.addCommand(varargs("echo", "varargs"));
+        commandManager.addCommand(command("echo", "one", 1));
+
+        execute("echo", "a");
+        execute("echo");
+        execute("echo", "a", "b", "c");
+        assertEquals("[one, varargs, varargs]", executed.toString());
+    }
+
+    @Test
+    public void wrongArityWithoutVarargsFails() {
+        commandManager.addCommand(command("pwd", "pwd", 0));
+        commandManager.addCommand(command("pwd", "pwd2", 2));
+
+        assertFails("Command found, but the parameter arity is not right!", "pwd", "a");
+        assertFails("Command found, but the parameter arity is not right!", "pwd", "a", "b", "c");
+        assertEquals("[]", executed.toString());
+    }
+
+    @Test
+    public void ambiguousOverloadsResolveToTheFirstRegistered() {
+        TerminalCommand first = command("kill", "first", 1);
+        TerminalCommand second = command("kill", "second", 1);
+        commandManager.addCommand(first);
+        commandManager.addCommand(second);
+        commandManager.addCommand(varargs("kill", "varargs1"));
+        commandManager.addCommand(varargs("kill", "varargs2"));
+
+        execute("kill", "1");
+        execute("kill", "1", "2");
+        assertEquals("[first, varargs1]", executed.toString());
+
+        commandManager.removeCommand(first);
+        execute("kill", "1");
+        assertEquals("[first, varargs1, second]", executed.toString());
+    }
+
+    @Test
+    public void dispatchIsRebuiltOnReplace() {
+        TerminalCommand original = command("head", "original", 1);
+        commandManager.addCommand(original);
+        commandManager.replaceCommand(original, command("head", "replacement", 1));
+
+        execute("head", "a");
+        assertEquals("[replacement]", executed.toString());
+    }
+
+    @Test
+    public void trieDispatchResolvesByNameAndArity() {
+        TerminalCommand none = command("find", "none", 0);
+        TerminalCommand all = varargs("find", "all");
+        CommandTrie trie = CommandTrie.EMPTY.add(all).add(none).add(command("finder", "finder", 0));
+
+        assertSame(none, trie.dispatch("find").resolve(0));
+        assertSame(all, trie.dispatch("find").resolve(1));
+        assertNull(trie.dispatch("fin"));
+        assertNull(trie.dispatch("finders"));
+        assertNull(CommandTrie.EMPTY.add(none).dispatch("find").resolve(1));
+    }
+}
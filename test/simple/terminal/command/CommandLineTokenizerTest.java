@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package simple.terminal.command;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CommandLineTokenizerTest {
+    private static final String[] LINES = {
+            "ls -l -n 20 src",
+            "cd \"My Documents\"",
+            "grep -i 'two words' src | head 5 &",
+            "echo a\\ b \"quoted \\\"inner\\\"\" ''",
+            "find   -name   *.java   -type f",
+    };
+    private static final int ROUNDS = 100000;
+
+    @Test
+    public void tokenizesQuotesEscapesAndOperators() {
+        CommandLineTokenizer tokenizer = new CommandLineTokenizer();
+        assertEquals(2, tokenizer.tokenize(LINES[1]));
+        assertEquals("My Documents", tokenizer.get(1));
+
+        assertEquals(8, tokenizer.tokenize(LINES[2]));
+        assertArrayEquals(new String[]{"grep", "-i", "two words", "src", "|", "head", "5", "&"}, tokenizer.toArray(0, 8));
+        assertTrue(tokenizer.isOperator(4, '|'));
+        assertTrue(tokenizer.isOperator(7, '&'));
+
+        assertEquals(4, tokenizer.tokenize(LINES[3]));
+        assertArrayEquals(new String[]{"echo", "a b", "quoted \"inner\"", ""}, tokenizer.toArray(0, 4));
+    }
+
+    /**
+     * Once the token storage grew to fit the longest line and the code is warmed up, tokenizing must not
+     * allocate at all.
+     */
+    @Test
+    public void tokenizingAllocatesNothingInTheSteadyState() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        allocations.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        CommandLineTokenizer tokenizer = new CommandLineTokenizer();
+        int tokens = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            tokens += tokenize(tokenizer);
+        }
+        allocations.getThreadAllocatedBytes(thread);
+
+        long before = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ROUNDS; i++) {
+            tokens += tokenize(tokenizer);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(tokens > 0);
+        assertEquals("bytes allocated by " + ROUNDS * LINES.length + " command lines", 0, allocated);
+    }
+
+    private static int tokenize(CommandLineTokenizer tokenizer) {
+        int tokens = 0;
+        for (String line : LINES) {
+            tokens += tokenizer.tokenize(line);
+            if (tokenizer.isOperator(tokenizer.size() - 1, '&')) {
+                tokens--;
+            }
+        }
+        return tokens;
+    }
+}
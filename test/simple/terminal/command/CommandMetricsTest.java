@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package simple.terminal.command;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CommandMetricsTest {
+    @Test
+    public void outputIsCountedForTheCommandWritingIt() {
+        CommandManager commandManager = new CommandManager();
+        TerminalCommand inner = new TerminalCommand("inner", params -> {
+            params.getLogger().log("inner", "one");
+            return true;
+        }, 0);
+        TerminalCommand outer = new TerminalCommand("outer", params -> {
+            params.getLogger().log("outer", "one");
+            commandManager.execute("inner", new TerminalCommand.Params(new String[0], params.getLogger()));
+            params.getLogger().log("outer", "two");
+            return true;
+        }, 0);
+        commandManager.addCommand(inner);
+        commandManager.addCommand(outer);
+
+        List<String> output = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            commandManager.execute("outer", new TerminalCommand.Params(new String[0], (source, message) -> output.add(message)));
+        }
+
+        assertEquals(9, output.size());
+        assertEquals(3, commandManager.getMetrics().get(outer).getInvocations());
+        assertEquals(6, commandManager.getMetrics().get(outer).getOutputLines());
+        assertEquals(3, commandManager.getMetrics().get(inner).getInvocations());
+        assertEquals(3, commandManager.getMetrics().get(inner).getOutputLines());
+    }
+
+    @Test
+    public void errorsAreKeyedByTypeAndParameter() {
+        CommandManager commandManager = new CommandManager();
+        TerminalCommand head = new TerminalCommand("head", params -> true,
+                new ParameterSchema().required("count", ParameterType.INT));
+        commandManager.addCommand(head);
+        for (String value : new String[]{"x", "y", "z"}) {
+            try {
+                commandManager.execute("head", new TerminalCommand.Params(new String[]{value}, (source, message) -> {
+                }));
+            } catch (RuntimeException e) {
+                // counted below
+            }
+        }
+
+        assertEquals(1, commandManager.getMetrics().get(head).getErrors().size());
+        assertEquals(3, commandManager.getMetrics().get(head).getErrorCount());
+    }
+}
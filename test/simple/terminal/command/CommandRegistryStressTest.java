@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package simple.terminal.command;
+
+import org.junit.Test;
+import simple.terminal.validation.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writers keep adding, replacing and removing commands while readers resolve, list and complete them. Readers
+ * must always find the commands nobody touches and must only ever see whole commands under the names they ask
+ * for; once the writers stop, the registry holds exactly what they left in it.
+ */
+public class CommandRegistryStressTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 8;
+    private static final int NAMES_PER_WRITER = 16;
+    private static final int ROUNDS = 500;
+    private static final int STABLE_COMMANDS = 64;
+
+    private static final TerminalCommand.Params NO_ARGUMENTS = new TerminalCommand.Params(new String[0],
+            (source, message) -> {
+            });
+
+    @Test(timeout = 60000)
+    public void readersNeverSeeAHalfUpdatedRegistry() throws Exception {
+        CommandManager commandManager = new CommandManager();
+        for (int i = 0; i < STABLE_COMMANDS; i++) {
+            commandManager.addCommand(new TerminalCommand("stable" + i, params -> true, 0));
+        }
+
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            String prefix = "churn" + w + "-";
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        List<TerminalCommand> added = new ArrayList<>();
+                        for (int n = 0; n < NAMES_PER_WRITER; n++) {
+                            TerminalCommand command = new TerminalCommand(prefix + n, params -> true, n % 3);
+                            commandManager.addCommand(command);
+                            added.add(command);
+                        }
+                        for (int n = 0; n < NAMES_PER_WRITER; n += 2) {
+                            TerminalCommand replacement = new TerminalCommand(prefix + n, params -> true, true);
+                            assertTrue(commandManager.replaceCommand(added.get(n), replacement));
+                            added.set(n, replacement);
+                        }
+                        for (TerminalCommand command : added) {
+                            assertTrue(commandManager.removeCommand(command));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    writersDone.countDown();
+                }
+            }));
+        }
+
+        for (int r = 0; r < READERS; r++) {
+            int reader = r;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (long i = reader; writing.get(); i++) {
+                        String stable = "stable" + (i % STABLE_COMMANDS);
+                        commandManager.execute(stable, NO_ARGUMENTS);
+                        assertEquals(1, commandManager.getCommands(stable).size());
+
+                        String churned = "churn" + (i % WRITERS) + "-" + (i % NAMES_PER_WRITER);
+                        for (TerminalCommand command : commandManager.getCommands(churned)) {
+                            assertEquals(churned, command.getName());
+                        }
+                        try {
+                            commandManager.execute(churned, NO_ARGUMENTS);
+                        } catch (ValidationException e) {
+                            // the command may be gone or have another arity right now
+                        }
+                        for (TerminalCommand command : commandManager.estimate("churn" + (i % WRITERS), 8)) {
+                            assertTrue(command.getName().startsWith("churn" + (i % WRITERS)));
+                        }
+                        int[] stableSeen = {0};
+                        commandManager.visitCommands(command -> {
+                            if (command.getName().startsWith("stable")) {
+                                stableSeen[0]++;
+                            }
+                            return true;
+                        });
+                        assertEquals(STABLE_COMMANDS, stableSeen[0]);
+                        reads.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        start.countDown();
+        assertTrue(writersDone.await(50, TimeUnit.SECONDS));
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (!failures.isEmpty()) {
+            throw new AssertionError("Concurrent access failed", failures.peek());
+        }
+        assertTrue(reads.get() > 0);
+        int[] left = {0};
+        commandManager.visitCommands(command -> {
+            left[0]++;
+            return true;
+        });
+        assertEquals(STABLE_COMMANDS, left[0]);
+        assertEquals(0, commandManager.estimate("churn", 10).size());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) AgentSlang Project Maintainers
+ *                                web: http://agent.roboslang.org/
+ * All Rights Reserved. Use is subject to license terms.
+ *
+ * The usage of this project makes mandatory the authors citation in
+ * any scientific publication or technical reports. For websites or
+ * research projects the AgentSlang website and logo needs to be linked
+ * in a visible area. Please check the project website for more details.
+ *
+ * All the files of the AgentSlang Project are subject of this license,
+ * until stated otherwise. All the libraries, sounds and graphic elements
+ * used in the project are subject to their own license.
+ *
+ * AgentSlang and its sub-projects (AgentSlang, MyBlock and Syn!bad)
+ * are free software: you can redistribute them and/or modify
+ * them under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package simple.terminal.command;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PluginLoaderTest {
+    @Test
+    public void malformedLinesAreReportedAndSkipped() throws IOException {
+        Path root = Files.createTempDirectory("plugins");
+        Path index = root.resolve(PluginLoader.INDEX_RESOURCE);
+        Files.createDirectories(index.getParent());
+        Files.write(index, Arrays.asList(
+                "# name arity class",
+                "first 1 org.example.First",
+                "broken org.example.Broken",
+                "second x org.example.Second",
+                "third * org.example.Third"), StandardCharsets.UTF_8);
+
+        CommandManager commandManager = new CommandManager();
+        List<String> errors = new ArrayList<>();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toUri().toURL()}, null)) {
+            assertEquals(2, new PluginLoader(classLoader).load(commandManager, (source, message) -> errors.add(message)));
+        }
+
+        assertEquals(1, commandManager.getCommands("first").size());
+        assertEquals(0, commandManager.getCommands("second").size());
+        assertEquals(1, commandManager.getCommands("third").size());
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("commands:3: "));
+        assertTrue(errors.get(1), errors.get(1).contains("commands:4: "));
+    }
+}
@@ -0,0 +1,39 @@
+package simple.terminal.completion;
+
+import org.junit.Test;
+import simple.terminal.command.CommandManager;
+import simple.terminal.command.TerminalCommand;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompletionEngineTest {
+    private static CommandManager create(String... names) {
+        CommandManager commandManager = new CommandManager();
+        for (String name : names) {
+            commandManager.addCommand(new TerminalCommand(name, params -> true, 0));
+        }
+        return commandManager;
+    }
+
+    @Test
+    public void prefixMatchesComeFirstEvenWithoutBudget() {
+        CommandManager commandManager = create("stop", "start", "status", "sort-tabs", "set-tag");
+        CompletionEngine engine = new CompletionEngine(commandManager, 3, 0);
+        engine.accepted("status");
+
+        List<String> completions = engine.generate("sta");
+        assertEquals(3, completions.size());
+        assertEquals(Arrays.asList("status (0 params)", "start (0 params)"), completions.subList(0, 2));
+    }
+
+    @Test
+    public void registryIsNotScannedWhenPrefixMatchesFillTheLimit() {
+        CommandManager commandManager = create("start", "status", "stash", "s-t-a");
+        CompletionEngine engine = new CompletionEngine(commandManager, 2, CompletionEngine.DEFAULT_BUDGET);
+
+        assertEquals(Arrays.asList("start (0 params)", "stash (0 params)"), engine.generate("sta"));
+    }
+}
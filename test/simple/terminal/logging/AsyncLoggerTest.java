@@ -0,0 +1,39 @@
+package simple.terminal.logging;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncLoggerTest {
+    @Test
+    public void failingSinkIsRemovedAndReportedOnce() throws IOException {
+        AtomicInteger writes = new AtomicInteger();
+        LogSink failing = new LogSink() {
+            @Override
+            public void write(List<LogEntry> entries) throws IOException {
+                writes.incrementAndGet();
+                throw new IOException("disk full");
+            }
+        };
+        MemorySink memory = new MemorySink(16);
+        try (AsyncLogger logger = new AsyncLogger(AsyncLogger.OverflowPolicy.BLOCK).addSink(failing).addSink(memory)) {
+            logger.log("ls", "first");
+            logger.flush();
+            logger.log("ls", "second");
+            logger.flush();
+        }
+
+        List<LogEntry> entries = memory.getEntries();
+        assertEquals(1, writes.get());
+        assertEquals(3, entries.size());
+        assertEquals("first", entries.get(0).getMessage());
+        assertEquals(AsyncLogger.SOURCE, entries.get(1).getSource());
+        assertTrue(entries.get(1).getMessage(), entries.get(1).getMessage().contains("disk full"));
+        assertEquals("second", entries.get(2).getMessage());
+    }
+}
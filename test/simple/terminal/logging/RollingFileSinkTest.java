@@ -0,0 +1,41 @@
+package simple.terminal.logging;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class RollingFileSinkTest {
+    @Test
+    public void loneSurrogateIsReplacedAndLaterLinesAreWritten() throws Exception {
+        Path folder = Files.createTempDirectory("rolling");
+        Path file = folder.resolve("terminal.log");
+        RollingFileSink sink = new RollingFileSink(file, 1 << 20, 1);
+        sink.write(Collections.singletonList(new LogEntry("ls", "broken \ud800 line")));
+        sink.flush();
+        sink.write(Collections.singletonList(new LogEntry("ls", "next line")));
+        sink.close();
+
+        String expected = new LogEntry("ls", "broken ? line") + "\n" + new LogEntry("ls", "next line") + "\n";
+        assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void rollsByEncodedSize() throws Exception {
+        Path folder = Files.createTempDirectory("rolling");
+        Path file = folder.resolve("terminal.log");
+        LogEntry entry = new LogEntry("s", "\u65e5\u672c\u8a9e\ud83d\ude00");
+        long lineBytes = entry.toString().getBytes(StandardCharsets.UTF_8).length + 1;
+        RollingFileSink sink = new RollingFileSink(file, lineBytes * 4, 2);
+        sink.write(Arrays.asList(entry, entry, entry, entry, entry));
+        sink.close();
+
+        assertEquals(lineBytes * 4, Files.size(folder.resolve("terminal.log.1")));
+        assertEquals(lineBytes, Files.size(file));
+    }
+}